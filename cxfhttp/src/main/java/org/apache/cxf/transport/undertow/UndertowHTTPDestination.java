@@ -169,16 +169,23 @@ public class UndertowHTTPDestination extends ServletDestination implements Endpo
 
     @Override
     public void service(ServletContext context, HttpServletRequest req, HttpServletResponse resp) throws IOException {
-
-        ClassLoaderHolder origLoader = null;
-        Bus origBus = BusFactory.getAndSetThreadDefaultBus(bus);
+        // Only swap the thread context if it is not set up for this destination already
+        final Bus origBus = BusFactory.getThreadDefaultBus(false);
+        final boolean swapBus = origBus != bus;
+        final ClassLoader currentLoader = loader;
+        final ClassLoaderHolder origLoader = currentLoader != null && Thread.currentThread().getContextClassLoader() != currentLoader
+                ? ClassLoaderUtils.setThreadContextClassloader(currentLoader) : null;
+        if (swapBus) {
+            BusFactory.setThreadDefaultBus(bus);
+        }
         try {
-            if (loader != null) {
-                origLoader = ClassLoaderUtils.setThreadContextClassloader(loader);
-            }
+            /*
+             * The endpoint servlet supports async, so CXF suspends slow invocations through a Servlet 3 continuation
+             * and returns here early; the resumed request re-enters this method via AsyncContext.dispatch()
+             */
             invoke(null, context, req, resp);
         } finally {
-            if (origBus != bus) {
+            if (swapBus) {
                 BusFactory.setThreadDefaultBus(origBus);
             }
             if (origLoader != null) {
@@ -22,8 +22,9 @@ package org.apache.cxf.transport.undertow.wildfly;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.cxf.transport.undertow.AbstractHTTPServerEngine;
 import org.apache.cxf.transport.undertow.UndertowHTTPHandler;
@@ -37,22 +38,44 @@ import org.wildfly.extension.camel.service.CamelEndpointDeploymentSchedulerServi
 class WildflyHTTPServerEngine extends AbstractHTTPServerEngine {
     private static final Logger LOG = LoggerFactory.getLogger(WildflyHTTPServerEngine.class);
 
-    private final Map<URI, ServiceName> uriServiceNameMap = new HashMap<>();
+    /** The servants of each deployment class loader that has servants on this engine */
+    private final ConcurrentMap<ClassLoader, DeploymentServants> deploymentServants = new ConcurrentHashMap<>();
+    /** The {@link DeploymentServants} each servant belongs to */
+    private final ConcurrentMap<URI, DeploymentServants> uriServantsMap = new ConcurrentHashMap<>();
 
     WildflyHTTPServerEngine(String protocol, String host, int port) {
         super(protocol, host, port);
     }
 
+    /**
+     * Schedules the given servant with the deployment's {@link CamelEndpointDeploymentSchedulerService} without
+     * waiting for it to be exposed, so that the servants published by a deployment share a batch. A servant that
+     * fails to deploy is logged and released.
+     */
     public void addServant(URL nurl, UndertowHTTPHandler handler) {
         try {
             final URI uri = nurl.toURI();
             LOG.debug("Adding CXF servant for URI {}", uri);
-            final ServiceName serviceName = CamelEndpointDeploymentSchedulerService.deploymentSchedulerServiceName(handler.getHTTPDestination().getClassLoader());
-            ServiceController<?> controller = CurrentServiceContainer.getServiceContainer().getRequiredService(serviceName);
-            CamelEndpointDeploymentSchedulerService deploymentSchedulerService = (CamelEndpointDeploymentSchedulerService) controller.getValue();
-            deploymentSchedulerService.schedule(uri, handler.getHTTPDestination());
-            synchronized (uriServiceNameMap) {
-                uriServiceNameMap.put(uri, serviceName);
+            ClassLoader classLoader = handler.getHTTPDestination().getClassLoader();
+            if (classLoader == null) {
+                classLoader = Thread.currentThread().getContextClassLoader();
+            }
+            final DeploymentServants servants = deploymentServants.compute(classLoader, (cl, existing) -> {
+                final DeploymentServants result = existing != null ? existing : new DeploymentServants(cl);
+                result.count++;
+                return result;
+            });
+            uriServantsMap.put(uri, servants);
+            try {
+                servants.scheduler.scheduleAsync(uri, handler.getHTTPDestination()).whenComplete((ignored, ex) -> {
+                    if (ex != null && !(ex instanceof CancellationException)) {
+                        LOG.warn("CXF servant for URI {} was not exposed: {}", uri, ex.toString());
+                        release(uri, servants);
+                    }
+                });
+            } catch (RuntimeException ex) {
+                release(uri, servants);
+                throw ex;
             }
         } catch (URISyntaxException e) {
             throw new RuntimeException(e);
@@ -63,18 +86,37 @@ class WildflyHTTPServerEngine extends AbstractHTTPServerEngine {
         try {
             final URI uri = nurl.toURI();
             LOG.debug("Removing CXF servant for URI {}", uri);
-            ServiceName serviceName = null;
-            synchronized (uriServiceNameMap) {
-                serviceName = uriServiceNameMap.remove(uri);
-            }
-            if (serviceName != null) {
-                ServiceController<?> serviceControler = CurrentServiceContainer.getServiceContainer().getRequiredService(serviceName);
-                CamelEndpointDeploymentSchedulerService deploymentSchedulerService = (CamelEndpointDeploymentSchedulerService) serviceControler.getValue();
-                deploymentSchedulerService.unschedule(uri);
+            final DeploymentServants servants = uriServantsMap.get(uri);
+            if (servants != null) {
+                release(uri, servants);
             }
         } catch (URISyntaxException e) {
             throw new RuntimeException(e);
         }
     }
 
+    private void release(URI uri, DeploymentServants servants) {
+        if (uriServantsMap.remove(uri, servants)) {
+            deploymentServants.computeIfPresent(servants.classLoader, (cl, existing) -> --existing.count > 0 ? existing : null);
+            servants.scheduler.unschedule(uri);
+        }
+    }
+
+    /**
+     * The {@link CamelEndpointDeploymentSchedulerService} of a deployment class loader, looked up once for all
+     * servants of that deployment and released with the last of them.
+     */
+    private static final class DeploymentServants {
+        private final ClassLoader classLoader;
+        private final CamelEndpointDeploymentSchedulerService scheduler;
+        /** Only accessed within {@link ConcurrentMap#compute} of {@link WildflyHTTPServerEngine#deploymentServants} */
+        private int count;
+
+        DeploymentServants(ClassLoader classLoader) {
+            this.classLoader = classLoader;
+            final ServiceName serviceName = CamelEndpointDeploymentSchedulerService.deploymentSchedulerServiceName(classLoader);
+            final ServiceController<?> controller = CurrentServiceContainer.getServiceContainer().getRequiredService(serviceName);
+            this.scheduler = (CamelEndpointDeploymentSchedulerService) controller.getValue();
+        }
+    }
 }
@@ -20,15 +20,20 @@
 
 package org.apache.cxf.transport.undertow.wildfly.subsystem.extension;
 
+import java.net.URISyntaxException;
 import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.camel.CamelContext;
 import org.apache.camel.Endpoint;
 import org.apache.camel.Route;
 import org.apache.camel.component.cxf.CxfComponent;
+import org.apache.camel.component.cxf.CxfEndpoint;
+import org.apache.camel.component.cxf.CxfSpringEndpoint;
 import org.apache.camel.component.cxf.jaxrs.CxfRsEndpoint;
-import org.apache.camel.spi.LifecycleStrategy;
 import org.apache.camel.support.LifecycleStrategySupport;
+import org.apache.camel.util.URISupport;
 import org.apache.cxf.Bus;
 import org.apache.cxf.BusFactory;
 import org.apache.cxf.transport.http.HttpDestinationFactory;
@@ -40,12 +45,22 @@ import org.wildfly.extension.camel.ContextCreateHandler;
  * to an instance that was created using the class loader of the Camel CXF component. This is to prevent the usage of
  * the {@link Bus} returned by {@link BusFactory#getThreadDefaultBus()} which may be set (improperly for us) by JBoss WS
  * subsystem.
+ * <p>
+ * Each deployment gets a {@link Bus} of its own, so that the interceptor lists and extension maps of a {@link Bus}
+ * are not contended across deployments. The {@link Bus} of a deployment is created with the first endpoint that
+ * needs it and shut down when the deployment is undeployed, see {@link CxfDeploymentBusProcessor}, so that a
+ * restarted {@link CamelContext} keeps using it. Contexts without an application class loader share the default
+ * {@link Bus}.
+ * <p>
+ * The {@link CxfEndpoint}s that a deployment creates from URIs without a {@code bus} option use the {@link Bus} of
+ * the deployment as well, instead of one {@link Bus} each. Endpoints sharing a contract thus share the parsed WSDL
+ * definition and schemas that the {@link org.apache.cxf.wsdl.WSDLManager} of the {@link Bus} caches by location.
  *
  * @author <a href="https://github.com/ppalaga">Peter Palaga</a>
  */
 public final class CxfDefaultBusHandler implements ContextCreateHandler {
 
-    private final LifecycleStrategy endpointStrategy = new CxfDefaultBusEndpointStrategy();
+    private final CxfDefaultBusEndpointStrategy endpointStrategy = new CxfDefaultBusEndpointStrategy();
 
     @Override
     public void setup(CamelContext camelctx) {
@@ -56,28 +71,17 @@ public final class CxfDefaultBusHandler implements ContextCreateHandler {
         super();
     }
 
-    static class CxfDefaultBusEndpointStrategy extends LifecycleStrategySupport {
-        private final Bus bus;
+    /**
+     * Shuts down the {@link Bus} created for the deployment with the given class loader, if any.
+     */
+    void releaseBus(ClassLoader classLoader) {
+        endpointStrategy.releaseBus(classLoader);
+    }
 
-        public CxfDefaultBusEndpointStrategy() {
-            super();
-            final Bus bus;
-            final ClassLoader origClassLoader = SecurityActions.getContextClassLoader();
-            try {
-                SecurityActions.setContextClassLoader(CxfComponent.class.getClassLoader());
-                bus = BusFactory.getDefaultBus(true);
-            } finally {
-                SecurityActions.setContextClassLoader(origClassLoader);
-            }
-            /* Check if the default bus is the one we want */
-            final HttpDestinationFactory httpDestinationFactory = bus.getExtension(HttpDestinationFactory.class);
-            if (httpDestinationFactory instanceof UndertowDestinationFactory) {
-                this.bus = bus;
-            } else {
-                throw new IllegalStateException(String.format("Expected %s returning %s, found %s", Bus.class.getName(),
-                        UndertowDestinationFactory.class.getName(), httpDestinationFactory.getClass().getName()));
-            }
-        }
+    static class CxfDefaultBusEndpointStrategy extends LifecycleStrategySupport {
+        /** The {@link Bus} of each deployment class loader */
+        private final ConcurrentMap<ClassLoader, Bus> deploymentBuses = new ConcurrentHashMap<>();
+        private volatile Bus defaultBus;
 
         public void onRoutesAdd(Collection<Route> routes) {
             /*
@@ -89,7 +93,7 @@ public final class CxfDefaultBusHandler implements ContextCreateHandler {
                 if (endpoint instanceof CxfRsEndpoint) {
                     final CxfRsEndpoint rsEnspoint = (CxfRsEndpoint) endpoint;
                     final Bus endpointBus = rsEnspoint.getBus();
-                    if (endpointBus == null || (endpointBus != bus && !(endpointBus
+                    if (endpointBus == null || (!isManagedBus(endpointBus) && !(endpointBus
                             .getExtension(HttpDestinationFactory.class) instanceof UndertowDestinationFactory))) {
                         /* Not a correct bus instance */
                         throw new IllegalStateException("A " + CxfRsEndpoint.class.getName() + " used in route " + route
@@ -110,10 +114,89 @@ public final class CxfDefaultBusHandler implements ContextCreateHandler {
                 final CxfRsEndpoint rsEndPoint = (CxfRsEndpoint) endpoint;
                 /* We set the bus only if the user has not provided one himself */
                 if (rsEndPoint.getBus() == null) {
-                    rsEndPoint.setBus(bus);
+                    rsEndPoint.setBus(getBus(endpoint.getCamelContext()));
+                }
+            } else if (endpoint instanceof CxfEndpoint && isDeploymentBusCandidate((CxfEndpoint) endpoint)) {
+                ((CxfEndpoint) endpoint).setBus(getBus(endpoint.getCamelContext()));
+            }
+        }
+
+        /**
+         * @return true if the given endpoint belongs to a deployment and was created from a URI that configures no
+         *         {@link Bus}. {@link CxfEndpoint#getBus()} creates a {@link Bus} when there is none, so it cannot tell
+         *         whether one was configured; bean endpoints and the {@code defaultBus} option are left alone.
+         */
+        private static boolean isDeploymentBusCandidate(CxfEndpoint endpoint) {
+            final CamelContext camelctx = endpoint.getCamelContext();
+            if (camelctx == null || camelctx.getApplicationContextClassLoader() == null || endpoint.getComponent() == null
+                    || endpoint instanceof CxfSpringEndpoint || endpoint.isDefaultBus()) {
+                return false;
+            }
+            final String uri = endpoint.getEndpointUri();
+            if (uri == null || uri.matches("cxf:(//)?bean:.*")) {
+                return false;
+            }
+            final int queryStart = uri.indexOf('?');
+            try {
+                return queryStart < 0 || !URISupport.parseQuery(uri.substring(queryStart + 1)).containsKey("bus");
+            } catch (URISyntaxException ex) {
+                return false;
+            }
+        }
+
+        void releaseBus(ClassLoader classLoader) {
+            final Bus bus = deploymentBuses.remove(classLoader);
+            if (bus != null) {
+                bus.shutdown(true);
+            }
+        }
+
+        private Bus getBus(CamelContext camelctx) {
+            final ClassLoader classLoader = camelctx != null ? camelctx.getApplicationContextClassLoader() : null;
+            if (classLoader == null) {
+                Bus bus = defaultBus;
+                if (bus == null) {
+                    synchronized (this) {
+                        bus = defaultBus;
+                        if (bus == null) {
+                            bus = defaultBus = createBus(true);
+                        }
+                    }
                 }
+                return bus;
             }
+            return deploymentBuses.computeIfAbsent(classLoader, cl -> createBus(false));
         }
 
+        private boolean isManagedBus(Bus bus) {
+            if (bus == defaultBus) {
+                return true;
+            }
+            return deploymentBuses.containsValue(bus);
+        }
+
+        /**
+         * @param defaultBus whether to return the default {@link Bus} rather than a new one
+         */
+        private static Bus createBus(boolean defaultBus) {
+            final Bus bus;
+            final ClassLoader origClassLoader = SecurityActions.getContextClassLoader();
+            final Bus origThreadBus = BusFactory.getThreadDefaultBus(false);
+            try {
+                SecurityActions.setContextClassLoader(CxfComponent.class.getClassLoader());
+                bus = defaultBus ? BusFactory.getDefaultBus(true) : BusFactory.newInstance().createBus();
+            } finally {
+                /* Creating a bus may make it the thread default bus */
+                BusFactory.setThreadDefaultBus(origThreadBus);
+                SecurityActions.setContextClassLoader(origClassLoader);
+            }
+            /* Check if the bus is the one we want */
+            final HttpDestinationFactory httpDestinationFactory = bus.getExtension(HttpDestinationFactory.class);
+            if (!(httpDestinationFactory instanceof UndertowDestinationFactory)) {
+                throw new IllegalStateException(String.format("Expected %s returning %s, found %s", Bus.class.getName(),
+                        UndertowDestinationFactory.class.getName(), httpDestinationFactory.getClass().getName()));
+            }
+            return bus;
+        }
     }
 }
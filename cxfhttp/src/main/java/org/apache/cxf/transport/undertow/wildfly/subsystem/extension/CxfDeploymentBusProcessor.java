@@ -0,0 +1,52 @@
+/*
+ * #%L
+ * Wildfly Camel :: Subsystem
+ * %%
+ * Copyright (C) 2013 - 2020 RedHat
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.apache.cxf.transport.undertow.wildfly.subsystem.extension;
+
+import org.jboss.as.server.deployment.Attachments;
+import org.jboss.as.server.deployment.DeploymentPhaseContext;
+import org.jboss.as.server.deployment.DeploymentUnit;
+import org.jboss.as.server.deployment.DeploymentUnitProcessingException;
+import org.jboss.as.server.deployment.DeploymentUnitProcessor;
+import org.jboss.modules.Module;
+
+/**
+ * Shuts down the {@link org.apache.cxf.Bus} that {@link CxfDefaultBusHandler} created for a deployment once the
+ * deployment is undeployed.
+ *
+ * @since 16-Oct-2020
+ */
+public class CxfDeploymentBusProcessor implements DeploymentUnitProcessor {
+
+    private final CxfDefaultBusHandler busHandler;
+
+    public CxfDeploymentBusProcessor(CxfDefaultBusHandler busHandler) {
+        this.busHandler = busHandler;
+    }
+
+    public final void deploy(final DeploymentPhaseContext phaseContext) throws DeploymentUnitProcessingException {
+    }
+
+    public void undeploy(DeploymentUnit depUnit) {
+        Module module = depUnit.getAttachment(Attachments.MODULE);
+        if (module != null) {
+            busHandler.releaseBus(module.getClassLoader());
+        }
+    }
+}
@@ -19,10 +19,14 @@
  */
 package org.apache.cxf.transport.undertow.wildfly.subsystem.extension;
 
+import org.jboss.as.server.DeploymentProcessorTarget;
+import org.jboss.as.server.deployment.Phase;
 import org.jboss.msc.service.ServiceContainer;
 import org.jboss.msc.service.ServiceTarget;
 import org.wildfly.extension.camel.CamelSubsytemExtension;
 import org.wildfly.extension.camel.ContextCreateHandler;
+import org.wildfly.extension.camel.parser.CamelExtension;
+import org.wildfly.extension.camel.parser.CamelSubsystemAdd;
 import org.wildfly.extension.camel.parser.SubsystemState;
 
 /**
@@ -32,10 +36,17 @@ import org.wildfly.extension.camel.parser.SubsystemState;
  */
 public class CxfSubsytemExtension implements CamelSubsytemExtension {
 
+    private final CxfDefaultBusHandler busHandler = new CxfDefaultBusHandler();
+
+    @Override
+    public void addDeploymentProcessor(DeploymentProcessorTarget processorTarget, SubsystemState subsystemState) {
+        processorTarget.addDeploymentProcessor(CamelExtension.SUBSYSTEM_NAME, Phase.INSTALL, CamelSubsystemAdd.INSTALL_CXF_DEPLOYMENT_BUS, new CxfDeploymentBusProcessor(busHandler));
+    }
+
     @Override
     public ContextCreateHandler getContextCreateHandler(ServiceContainer serviceContainer, ServiceTarget serviceTarget,
             SubsystemState subsystemState) {
-        return new CxfDefaultBusHandler();
+        return busHandler;
     }
 
 }
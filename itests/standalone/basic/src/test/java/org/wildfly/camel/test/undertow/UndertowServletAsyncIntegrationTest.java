@@ -0,0 +1,98 @@
+/*
+ * #%L
+ * Wildfly Camel :: Testsuite
+ * %%
+ * Copyright (C) 2013 - 2020 RedHat
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.wildfly.camel.test.undertow;
+
+import static java.net.HttpURLConnection.HTTP_OK;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.wildfly.camel.test.common.http.HttpRequest;
+import org.wildfly.camel.test.common.http.HttpRequest.HttpResponse;
+import org.wildfly.extension.camel.CamelAware;
+
+@CamelAware
+@RunWith(Arquillian.class)
+public class UndertowServletAsyncIntegrationTest {
+
+    @Deployment
+    public static WebArchive deployment() {
+        return ShrinkWrap.create(WebArchive.class, "camel-undertow-servlet-async.war")
+            .addClasses(HttpRequest.class);
+    }
+
+    @Test
+    public void testServletAsyncConsumer() throws Exception {
+        CamelContext camelctx = new DefaultCamelContext();
+        camelctx.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("undertow:http://localhost/async?servletAsync=true")
+                .to("seda:work?waitForTaskToComplete=Always");
+
+                from("seda:work")
+                .delay(100)
+                .setBody(simple("Hello ${header.name} from ${threadName}"));
+            }
+        });
+
+        camelctx.start();
+        try {
+            HttpResponse response = HttpRequest.get("http://localhost:8080/async?name=Kermit").getResponse();
+            Assert.assertEquals(HTTP_OK, response.getStatusCode());
+            Assert.assertTrue(response.getBody(), response.getBody().startsWith("Hello Kermit from "));
+            // The response is written by the seda consumer thread
+            Assert.assertTrue(response.getBody(), response.getBody().contains("seda://work"));
+        } finally {
+            camelctx.close();
+        }
+    }
+
+    @Test
+    public void testServletAsyncConsumerFailure() throws Exception {
+        CamelContext camelctx = new DefaultCamelContext();
+        camelctx.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() throws Exception {
+                from("undertow:http://localhost/async-failure?servletAsync=true")
+                .to("seda:fail?waitForTaskToComplete=Always");
+
+                from("seda:fail")
+                .throwException(new IllegalStateException("Kaboom"));
+            }
+        });
+
+        camelctx.start();
+        try {
+            HttpResponse response = HttpRequest.get("http://localhost:8080/async-failure").throwExceptionOnFailure(false).getResponse();
+            Assert.assertEquals(500, response.getStatusCode());
+        } finally {
+            camelctx.close();
+        }
+    }
+}
@@ -21,8 +21,11 @@
 
 package org.wildfly.extension.camel;
 
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.apache.camel.CamelContext;
 
@@ -44,4 +47,11 @@ public interface CamelContextRegistry {
 
     /** Get an unmodifiable set of camel contexts stored within the registry */
     Set<CamelContext> getCamelContexts();
+
+    /** Get an unmodifiable set of camel contexts associated with the given application class loader */
+    default Set<CamelContext> getCamelContexts(ClassLoader classLoader) {
+        return Collections.unmodifiableSet(getCamelContexts().stream()
+                .filter(camelctx -> classLoader != null && classLoader == camelctx.getApplicationContextClassLoader())
+                .collect(Collectors.toCollection(LinkedHashSet::new)));
+    }
 }
@@ -0,0 +1,244 @@
+/*
+ * #%L
+ * Wildfly Camel :: Subsystem
+ * %%
+ * Copyright (C) 2013 - 2020 RedHat
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wildfly.extension.camel;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.camel.CamelContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.SpringVersion;
+
+/**
+ * The content digests of the Spring descriptors that passed XML schema validation before. A descriptor with a known
+ * digest is parsed without validation.
+ * <p>
+ * The digests are kept in <code>camel/validated-descriptors-&lt;camel version&gt;-&lt;spring version&gt;</code> under
+ * the server data directory, so that they survive redeployments and server restarts, but not an upgrade that may
+ * change the schemas. Files of other versions are deleted. The file holds at most {@link #MAX_DIGESTS} digests; once
+ * it grows beyond that, the oldest digests are dropped and the file is rewritten. Without a server data directory the
+ * digests are kept in memory only.
+ * <p>
+ * Skipping validation also skips the documents that a descriptor pulls in, which are not part of its digest. Only
+ * self-contained descriptors, see {@link #isSelfContained(byte[])}, are therefore eligible.
+ *
+ * @since 16-Oct-2020
+ */
+final class DescriptorValidationCache {
+
+    static final int MAX_DIGESTS = 1024;
+    static final String FILE_NAME_PREFIX = "validated-descriptors";
+
+    static final DescriptorValidationCache INSTANCE = new DescriptorValidationCache(resolveCacheFile(), MAX_DIGESTS);
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DescriptorValidationCache.class);
+    private static final Pattern IMPORT_PATTERN = Pattern.compile("<(?:[\\w.-]+:)?import[\\s/>]");
+    private static final Pattern NAMESPACE_PATTERN = Pattern.compile("xmlns(?::[\\w.-]+)?\\s*=\\s*[\"']([^\"']*)[\"']");
+    private static final String[] KNOWN_NAMESPACE_PREFIXES = {
+        "http://www.springframework.org/schema/", "http://camel.apache.org/schema/", "http://www.w3.org/"
+    };
+
+    /** The digests in the order they were added; always accessed under this cache's lock */
+    private final Set<String> digests = new LinkedHashSet<>();
+    private final Path cacheFile;
+    private final int maxDigests;
+    private boolean loaded;
+
+    DescriptorValidationCache(Path cacheFile, int maxDigests) {
+        this.cacheFile = cacheFile;
+        this.maxDigests = maxDigests;
+    }
+
+    /**
+     * @return the hex encoded SHA-256 digest of the given descriptor content
+     */
+    static String digest(byte[] content) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder builder = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * A descriptor is self-contained if it neither imports other descriptors nor has a DOCTYPE, and all its namespaces
+     * are Spring, Camel or W3C ones, whose schemas are covered by the versions in the cache file name. The check is
+     * conservative: text that merely looks like an import also disqualifies the descriptor.
+     *
+     * @return true if the given descriptor content is validated as a whole by its own digest
+     */
+    static boolean isSelfContained(byte[] content) {
+        String text = new String(content, StandardCharsets.ISO_8859_1);
+        if (text.contains("<!DOCTYPE") || IMPORT_PATTERN.matcher(text).find()) {
+            return false;
+        }
+        Matcher matcher = NAMESPACE_PATTERN.matcher(text);
+        while (matcher.find()) {
+            if (!isKnownNamespace(matcher.group(1))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isKnownNamespace(String namespaceUri) {
+        for (String prefix : KNOWN_NAMESPACE_PREFIXES) {
+            if (namespaceUri.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    synchronized boolean isValidated(String digest) {
+        load();
+        return digests.contains(digest);
+    }
+
+    synchronized void setValidated(String digest) {
+        load();
+        if (digests.add(digest) && cacheFile != null) {
+            if (digests.size() > maxDigests) {
+                compact();
+            } else {
+                try {
+                    Files.createDirectories(cacheFile.getParent());
+                    Files.write(cacheFile, (digest + System.lineSeparator()).getBytes(StandardCharsets.US_ASCII),
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                } catch (IOException ex) {
+                    LOGGER.debug("Cannot write validated descriptor digest to " + cacheFile, ex);
+                }
+            }
+        }
+    }
+
+    synchronized int size() {
+        load();
+        return digests.size();
+    }
+
+    /**
+     * Always call under this cache's lock.
+     */
+    private void load() {
+        if (!loaded) {
+            loaded = true;
+            if (cacheFile == null) {
+                return;
+            }
+            deleteStaleFiles();
+            if (Files.isRegularFile(cacheFile)) {
+                int lineCount = 0;
+                try {
+                    for (String line : Files.readAllLines(cacheFile, StandardCharsets.US_ASCII)) {
+                        if (!line.isEmpty()) {
+                            digests.add(line.trim());
+                            lineCount++;
+                        }
+                    }
+                } catch (IOException ex) {
+                    LOGGER.debug("Cannot read validated descriptor digests from " + cacheFile, ex);
+                }
+                if (lineCount > maxDigests || lineCount != digests.size()) {
+                    compact();
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the oldest digests down to three quarters of {@link #maxDigests} and rewrites the cache file with the
+     * remaining ones. Always call under this cache's lock.
+     */
+    private void compact() {
+        final int retained = maxDigests - maxDigests / 4;
+        for (Iterator<String> it = digests.iterator(); digests.size() > retained && it.hasNext();) {
+            it.next();
+            it.remove();
+        }
+        final List<String> lines = new ArrayList<>(digests);
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            final Path tmpFile = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+            Files.write(tmpFile, lines, StandardCharsets.US_ASCII);
+            Files.move(tmpFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            LOGGER.debug("Cannot compact validated descriptor digests in " + cacheFile, ex);
+        }
+    }
+
+    /**
+     * Deletes the digest files written by other Camel or Spring versions. Always call under this cache's lock.
+     */
+    private void deleteStaleFiles() {
+        final Path dir = cacheFile.getParent();
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, FILE_NAME_PREFIX + "*")) {
+            for (Path path : stream) {
+                if (!path.equals(cacheFile)) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        } catch (IOException ex) {
+            LOGGER.debug("Cannot delete stale validated descriptor digests in " + dir, ex);
+        }
+    }
+
+    private static Path resolveCacheFile() {
+        try {
+            String dataDir = System.getProperty("jboss.server.data.dir");
+            return dataDir != null ? Paths.get(dataDir, "camel", cacheFileName()) : null;
+        } catch (SecurityException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the name of the digest file of the current Camel and Spring versions
+     */
+    static String cacheFileName() {
+        final String camelVersion = CamelContext.class.getPackage().getImplementationVersion();
+        final String springVersion = SpringVersion.getVersion();
+        return FILE_NAME_PREFIX + "-" + (camelVersion != null ? camelVersion : "unknown") + "-" + (springVersion != null ? springVersion : "unknown");
+    }
+}
@@ -20,6 +20,8 @@
 package org.wildfly.extension.camel;
 
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -57,7 +59,7 @@ public class SpringCamelContextBootstrap {
      * @param classLoader The ClassLoader that the Spring {@link GenericApplicationContext} should use
      */
     public SpringCamelContextBootstrap(final URL contextUrl, final ClassLoader classLoader) {
-        this(new UrlResource(contextUrl), classLoader);
+        this(new UrlResource(contextUrl), classLoader, digest(contextUrl));
     }
 
     /**
@@ -65,18 +67,18 @@ public class SpringCamelContextBootstrap {
      * @param classLoader The ClassLoader that the Spring {@link GenericApplicationContext} should use
      */
     public SpringCamelContextBootstrap(final byte[] bytes, final ClassLoader classLoader) {
-        this(new ByteArrayResource(bytes), classLoader);
+        this(new ByteArrayResource(bytes), classLoader, digest(bytes));
     }
 
-    private SpringCamelContextBootstrap(final Resource resource, final ClassLoader classLoader) {
-        loadBeanDefinitions(resource, classLoader);
+    private SpringCamelContextBootstrap(final Resource resource, final ClassLoader classLoader, final String digest) {
+        loadBeanDefinitions(resource, classLoader, digest);
     }
 
     /**
      * Initializes the Spring {@link GenericApplicationContext} and returns all instances of {@link SpringCamelContext} beans.
      *
      * Note that {@link SpringCamelContext} instances are created in the <b>stopped</b> state. Starting the {@link SpringCamelContext}
-     * is left to the caller.
+     * is left to the caller. Distinct bootstraps may create their contexts concurrently on distinct threads.
      *
      * @return Unmodifiable list of {@link SpringCamelContext} instances
      * @throws Exception
@@ -86,14 +88,18 @@ public class SpringCamelContextBootstrap {
             throw new IllegalStateException("Unable to refresh Spring application context. Context is already initialized");
         }
 
-        SpringCamelContext.setNoStart(true);
         ProxyUtils.invokeProxied(new ProxiedAction() {
             @Override
             public void run() throws Exception {
-                applicationContext.refresh();
+                // The no-start flag is thread local, it must only be set for the refresh of this application context
+                SpringCamelContext.setNoStart(true);
+                try {
+                    applicationContext.refresh();
+                } finally {
+                    SpringCamelContext.setNoStart(false);
+                }
             }
         }, applicationContext.getClassLoader());
-        SpringCamelContext.setNoStart(false);
 
         return getSpringCamelContexts();
     }
@@ -159,7 +165,24 @@ public class SpringCamelContextBootstrap {
         return applicationContext.getClassLoader();
     }
 
-    private void loadBeanDefinitions(Resource resource, ClassLoader classLoader) {
+    private static String digest(URL contextUrl) {
+        try (InputStream in = contextUrl.openStream()) {
+            return digest(in.readAllBytes());
+        } catch (IOException ex) {
+            LOGGER.debug("Cannot read " + contextUrl, ex);
+            return null;
+        }
+    }
+
+    private static String digest(byte[] content) {
+        return DescriptorValidationCache.isSelfContained(content) ? DescriptorValidationCache.digest(content) : null;
+    }
+
+    /**
+     * Loads the bean definitions of the given descriptor. A self-contained descriptor that passed schema validation
+     * before, as told by its content digest, is not validated again. Other descriptors have no digest.
+     */
+    private void loadBeanDefinitions(Resource resource, ClassLoader classLoader, String digest) {
         applicationContext = new GenericApplicationContext();
         applicationContext.setClassLoader(classLoader);
         XmlBeanDefinitionReader xmlReader = new XmlBeanDefinitionReader(applicationContext) {
@@ -169,7 +192,17 @@ public class SpringCamelContextBootstrap {
                 return new SpringCamelContextBootstrap.CamelNamespaceHandlerResolver(defaultResolver);
             }
         };
+        final DescriptorValidationCache validationCache = DescriptorValidationCache.INSTANCE;
+        final boolean validated = digest != null && validationCache.isValidated(digest);
+        if (validated) {
+            LOGGER.debug("Skipping validation of unchanged descriptor {}", resource);
+            xmlReader.setValidationMode(XmlBeanDefinitionReader.VALIDATION_NONE);
+            xmlReader.setNamespaceAware(true);
+        }
         xmlReader.loadBeanDefinitions(resource);
+        if (digest != null && !validated) {
+            validationCache.setValidated(digest);
+        }
     }
 
     private static class CamelNamespaceHandlerResolver implements NamespaceHandlerResolver {
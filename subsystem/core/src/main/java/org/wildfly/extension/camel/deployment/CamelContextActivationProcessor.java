@@ -26,6 +26,7 @@ import static org.wildfly.extension.camel.CamelLogger.LOGGER;
 import java.util.List;
 
 import org.jboss.as.naming.deployment.ContextNames;
+import org.jboss.as.server.Services;
 import org.jboss.as.server.deployment.Attachments;
 import org.jboss.as.server.deployment.DeploymentPhaseContext;
 import org.jboss.as.server.deployment.DeploymentUnit;
@@ -62,8 +63,9 @@ public class CamelContextActivationProcessor implements DeploymentUnitProcessor
         ServiceName camelActivationServiceName = depUnit.getServiceName().append(CAMEL_CONTEXT_ACTIVATION_SERVICE_NAME.append(runtimeName));
 
         List<SpringCamelContextBootstrap> camelctxBootstrapList = depUnit.getAttachmentList(CamelConstants.CAMEL_CONTEXT_BOOTSTRAP_KEY);
-        CamelContextActivationService activationService = new CamelContextActivationService(camelctxBootstrapList, runtimeName);
+        CamelContextActivationService activationService = new CamelContextActivationService(camelctxBootstrapList, runtimeName, depSettings.isParallelContextStart());
         ServiceBuilder builder = serviceTarget.addService(camelActivationServiceName, activationService);
+        Services.addServerExecutorDependency(builder, activationService.getExecutorInjector());
 
         // Ensure all camel contexts in the deployment are started before constructing servlets etc
         depUnit.addToAttachmentList(Attachments.WEB_DEPENDENCIES, camelActivationServiceName);
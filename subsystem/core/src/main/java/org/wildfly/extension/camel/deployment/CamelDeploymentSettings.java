@@ -46,11 +46,19 @@ public final class CamelDeploymentSettings {
     private final List<String> dependencies;
     private final List<URL> camelContextUrls;
     private final boolean enabled;
+    private final boolean directHttpHandlers;
+    private final boolean sharedEndpointDeployment;
+    private final boolean parallelContextStart;
+    private final Map<String, HttpEndpointLimit> httpEndpointLimits;
 
-    private CamelDeploymentSettings(List<String> dependencies, List<URL> camelContextUrls, boolean enabled) {
+    private CamelDeploymentSettings(List<String> dependencies, List<URL> camelContextUrls, boolean enabled, boolean directHttpHandlers, boolean sharedEndpointDeployment, boolean parallelContextStart, Map<String, HttpEndpointLimit> httpEndpointLimits) {
         this.dependencies = dependencies;
         this.camelContextUrls = camelContextUrls;
         this.enabled = enabled;
+        this.directHttpHandlers = directHttpHandlers;
+        this.sharedEndpointDeployment = sharedEndpointDeployment;
+        this.parallelContextStart = parallelContextStart;
+        this.httpEndpointLimits = httpEndpointLimits;
     }
 
     public static CamelDeploymentSettings get(String name) {
@@ -69,6 +77,40 @@ public final class CamelDeploymentSettings {
         return enabled;
     }
 
+    /**
+     * @return {@code true} if camel-undertow consumers of this deployment should be registered as plain Undertow
+     *         handlers rather than being wrapped in a servlet deployment; {@code false} otherwise
+     */
+    public boolean isDirectHttpHandlers() {
+        return directHttpHandlers;
+    }
+
+    /**
+     * @return {@code true} if all HTTP endpoints of this deployment should be served by a single servlet deployment
+     *         rather than by a servlet deployment per endpoint; {@code false} otherwise
+     */
+    public boolean isSharedEndpointDeployment() {
+        return sharedEndpointDeployment;
+    }
+
+    /**
+     * @return {@code true} if the Spring Camel contexts of this deployment should be created and started concurrently
+     *         rather than one after the other; {@code false} otherwise
+     */
+    public boolean isParallelContextStart() {
+        return parallelContextStart;
+    }
+
+    /**
+     * @param path the path under which an HTTP endpoint is exposed
+     * @return the {@link HttpEndpointLimit} configured for the given path, the deployment wide default or {@code null}
+     *         if none was configured
+     */
+    public HttpEndpointLimit getHttpEndpointLimit(String path) {
+        final HttpEndpointLimit result = httpEndpointLimits.get(path);
+        return result != null ? result : httpEndpointLimits.get(HttpEndpointLimit.DEFAULT_PATH);
+    }
+
     public List<String> getModuleDependencies() {
         return dependencies;
     }
@@ -85,6 +127,10 @@ public final class CamelDeploymentSettings {
         private String deploymentName;
         private boolean deploymentValid;
         private boolean disabledByJbossAll;
+        private boolean directHttpHandlers;
+        private boolean sharedEndpointDeployment;
+        private boolean parallelContextStart;
+        private Map<String, HttpEndpointLimit> httpEndpointLimits = new HashMap<>();
         private final Object lock = new Object();
 
         /**
@@ -97,10 +143,19 @@ public final class CamelDeploymentSettings {
          */
         public CamelDeploymentSettings build() {
             final boolean enabled;
+            final boolean directHandlers;
+            final boolean sharedDeployment;
+            final boolean parallelStart;
+            final Map<String, HttpEndpointLimit> limits;
             final List<String> deps;
             final List<URL> urls;
             synchronized (lock) {
                 enabled = isEnabled();
+                directHandlers = directHttpHandlers;
+                sharedDeployment = sharedEndpointDeployment;
+                parallelStart = parallelContextStart;
+                limits = Collections.unmodifiableMap(this.httpEndpointLimits);
+                this.httpEndpointLimits = null;
                 for (Map.Entry<CamelDeploymentSettings.Builder, Consumer<CamelDeploymentSettings>> e : children) {
                     final CamelDeploymentSettings childDepSettings = e.getKey().build();
                     e.getValue().accept(childDepSettings);
@@ -111,7 +166,7 @@ public final class CamelDeploymentSettings {
                 urls = Collections.unmodifiableList(this.camelContextUrls);
                 this.camelContextUrls = null;
             }
-            final CamelDeploymentSettings result = new CamelDeploymentSettings(deps, urls, enabled);
+            final CamelDeploymentSettings result = new CamelDeploymentSettings(deps, urls, enabled, directHandlers, sharedDeployment, parallelStart, limits);
             synchronized (deploymentSettingsMap) {
                 deploymentSettingsMap.put(deploymentName, result);
             }
@@ -161,6 +216,34 @@ public final class CamelDeploymentSettings {
             return this;
         }
 
+        public Builder directHttpHandlers(boolean directHttpHandlers) {
+            synchronized (lock) {
+                this.directHttpHandlers = directHttpHandlers;
+            }
+            return this;
+        }
+
+        public Builder sharedEndpointDeployment(boolean sharedEndpointDeployment) {
+            synchronized (lock) {
+                this.sharedEndpointDeployment = sharedEndpointDeployment;
+            }
+            return this;
+        }
+
+        public Builder parallelContextStart(boolean parallelContextStart) {
+            synchronized (lock) {
+                this.parallelContextStart = parallelContextStart;
+            }
+            return this;
+        }
+
+        public Builder httpEndpointLimit(HttpEndpointLimit httpEndpointLimit) {
+            synchronized (lock) {
+                this.httpEndpointLimits.put(httpEndpointLimit.getPath(), httpEndpointLimit);
+            }
+            return this;
+        }
+
         public Builder disabledByJbossAll(boolean disabledByJbossAll) {
             synchronized (lock) {
                 this.disabledByJbossAll = disabledByJbossAll;
@@ -218,4 +301,44 @@ public final class CamelDeploymentSettings {
             return false;
         }
     }
+
+    /**
+     * Bounds the number of requests concurrently served by an HTTP endpoint.
+     */
+    public static final class HttpEndpointLimit {
+
+        /** The path of the deployment wide default limit */
+        public static final String DEFAULT_PATH = "";
+
+        private final String path;
+        private final int maxConcurrentRequests;
+        private final int queueSize;
+        private final int retryAfter;
+
+        public HttpEndpointLimit(String path, int maxConcurrentRequests, int queueSize, int retryAfter) {
+            this.path = path == null ? DEFAULT_PATH : path;
+            this.maxConcurrentRequests = maxConcurrentRequests;
+            this.queueSize = queueSize;
+            this.retryAfter = retryAfter;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public int getMaxConcurrentRequests() {
+            return maxConcurrentRequests;
+        }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        /**
+         * @return the number of seconds sent in the {@code Retry-After} header of rejected requests
+         */
+        public int getRetryAfter() {
+            return retryAfter;
+        }
+    }
 }
@@ -71,7 +71,7 @@ public class CamelEndpointDeployerProcessor implements DeploymentUnitProcessor {
         final ServiceName hostServiceName = UndertowService.virtualHostName(serverName, hostName);
 
         CamelEndpointDeployerService.addService(deploymentUnit, phaseContext.getServiceTarget(),
-                deploymentInfoServiceName, hostServiceName);
+                deploymentInfoServiceName, hostServiceName, depSettings);
     }
 
     @Override
@@ -67,6 +67,7 @@ public class CamelIntegrationParser implements JBossAllXMLParser<CamelDeployment
         CAMEL_INTEGRATION(ROOT_ELEMENT),
         COMPONENT(new QName(NAMESPACE_1_0, "component")),
         COMPONENT_MODULE(new QName(NAMESPACE_1_0, "component-module")),
+        HTTP_ENDPOINT_LIMIT(new QName(NAMESPACE_1_0, "http-endpoint-limit")),
         // default unknown element
         UNKNOWN(null);
 
@@ -113,6 +114,13 @@ public class CamelIntegrationParser implements JBossAllXMLParser<CamelDeployment
     enum Attribute {
         NAME(new QName("name")),
         ENABLED(new QName("enabled")),
+        DIRECT_HTTP_HANDLERS(new QName("direct-http-handlers")),
+        SHARED_ENDPOINT_DEPLOYMENT(new QName("shared-endpoint-deployment")),
+        PARALLEL_CONTEXT_START(new QName("parallel-context-start")),
+        PATH(new QName("path")),
+        MAX_CONCURRENT_REQUESTS(new QName("max-concurrent-requests")),
+        QUEUE_SIZE(new QName("queue-size")),
+        RETRY_AFTER(new QName("retry-after")),
         // default unknown attribute
         UNKNOWN(null);
 
@@ -151,6 +159,9 @@ public class CamelIntegrationParser implements JBossAllXMLParser<CamelDeployment
             case CAMEL_INTEGRATION:
                 final String value = getAttributeValue(reader, Attribute.ENABLED, propertyReplacer);
                 result.disabledByJbossAll(Boolean.valueOf(value) == Boolean.FALSE);
+                result.directHttpHandlers(Boolean.parseBoolean(getAttributeValue(reader, Attribute.DIRECT_HTTP_HANDLERS, propertyReplacer)));
+                result.sharedEndpointDeployment(Boolean.parseBoolean(getAttributeValue(reader, Attribute.SHARED_ENDPOINT_DEPLOYMENT, propertyReplacer)));
+                result.parallelContextStart(Boolean.parseBoolean(getAttributeValue(reader, Attribute.PARALLEL_CONTEXT_START, propertyReplacer)));
                 break;
             default:
                 throw unexpectedContent(reader);
@@ -171,6 +182,9 @@ public class CamelIntegrationParser implements JBossAllXMLParser<CamelDeployment
                         case COMPONENT_MODULE:
                             parseComponentModuleElement(reader, result, propertyReplacer);
                             break;
+                        case HTTP_ENDPOINT_LIMIT:
+                            parseHttpEndpointLimitElement(reader, result, propertyReplacer);
+                            break;
                         default:
                             throw unexpectedContent(reader);
                     }
@@ -219,6 +233,31 @@ public class CamelIntegrationParser implements JBossAllXMLParser<CamelDeployment
         }
     }
 
+    private static void parseHttpEndpointLimitElement(XMLExtendedStreamReader reader, CamelDeploymentSettings.Builder result, PropertyReplacer propertyReplacer) throws XMLStreamException {
+        final String path = getAttributeValue(reader, Attribute.PATH, propertyReplacer);
+        final int maxConcurrentRequests = getIntAttributeValue(reader, Attribute.MAX_CONCURRENT_REQUESTS, propertyReplacer, 0);
+        final int queueSize = getIntAttributeValue(reader, Attribute.QUEUE_SIZE, propertyReplacer, 0);
+        final int retryAfter = getIntAttributeValue(reader, Attribute.RETRY_AFTER, propertyReplacer, 1);
+        if (maxConcurrentRequests <= 0) {
+            throw new XMLStreamException("Expected a positive " + Attribute.MAX_CONCURRENT_REQUESTS.getQName() + " at " + reader.getLocation());
+        }
+        if (queueSize < 0) {
+            throw new XMLStreamException("Expected a non-negative " + Attribute.QUEUE_SIZE.getQName() + " at " + reader.getLocation());
+        }
+        if (retryAfter < 0) {
+            throw new XMLStreamException("Expected a non-negative " + Attribute.RETRY_AFTER.getQName() + " at " + reader.getLocation());
+        }
+        result.httpEndpointLimit(new CamelDeploymentSettings.HttpEndpointLimit(path, maxConcurrentRequests, queueSize, retryAfter));
+        switch (reader.nextTag()) {
+            case XMLStreamConstants.END_ELEMENT: {
+                return;
+            }
+            default: {
+                throw unexpectedContent(reader);
+            }
+        }
+    }
+
     private static XMLStreamException unexpectedContent(final XMLStreamReader reader) {
         final String kind;
         switch (reader.getEventType()) {
@@ -282,6 +321,18 @@ public class CamelIntegrationParser implements JBossAllXMLParser<CamelDeployment
         return reader.getAttributeValue(null, attribute.getQName().getLocalPart());
     }
 
+    private static int getIntAttributeValue(final XMLStreamReader reader, Attribute attribute, final PropertyReplacer propertyReplacer, int defaultValue) throws XMLStreamException {
+        final String value = getAttributeValue(reader, attribute, propertyReplacer);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new XMLStreamException("Expected an integer " + attribute.getQName() + " at " + reader.getLocation() + ": " + value);
+        }
+    }
+
     private static XMLStreamException endOfDocument(final Location location) {
         return new XMLStreamException("Expected end of document "+location);
 //        return ServerLogger.ROOT_LOGGER.unexpectedEndOfDocument(location);
@@ -0,0 +1,73 @@
+/*
+ * #%L
+ * Wildfly Camel :: Subsystem
+ * %%
+ * Copyright (C) 2013 - 2020 RedHat
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wildfly.extension.camel.deployment;
+
+import static org.wildfly.extension.camel.CamelLogger.LOGGER;
+
+import org.jboss.as.server.deployment.AttachmentKey;
+import org.jboss.as.server.deployment.Attachments;
+import org.jboss.as.server.deployment.DeploymentPhaseContext;
+import org.jboss.as.server.deployment.DeploymentUnit;
+import org.jboss.as.server.deployment.DeploymentUnitProcessingException;
+import org.jboss.as.server.deployment.DeploymentUnitProcessor;
+import org.jboss.modules.ModuleClassLoader;
+import org.wildfly.extension.camel.CamelConstants;
+import org.wildfly.extension.camel.ContextCreateHandlerRegistry;
+import org.wildfly.extension.camel.handler.ClassLookupCache;
+import org.wildfly.extension.camel.handler.ClassResolverAssociationHandler;
+
+/**
+ * Let the CamelContexts of a deployment share a class lookup cache that is dropped with the deployment
+ *
+ * @since 16-Oct-2020
+ */
+public class ClassResolverProcessor implements DeploymentUnitProcessor {
+    private static final AttachmentKey<ClassResolverAssociationHandler> CLASS_RESOLVER_ASSOCIATION_HANDLER_ATTACHMENT_KEY = AttachmentKey.create(ClassResolverAssociationHandler.class);
+
+    public final void deploy(final DeploymentPhaseContext phaseContext) throws DeploymentUnitProcessingException {
+        DeploymentUnit depUnit = phaseContext.getDeploymentUnit();
+        CamelDeploymentSettings depSettings = depUnit.getAttachment(CamelDeploymentSettings.ATTACHMENT_KEY);
+
+        // Camel disabled
+        if (!depSettings.isEnabled()) {
+            return;
+        }
+
+        ContextCreateHandlerRegistry createHandlerRegistry = depUnit.getAttachment(CamelConstants.CONTEXT_CREATE_HANDLER_REGISTRY_KEY);
+        ModuleClassLoader moduleClassLoader = depUnit.getAttachment(Attachments.MODULE).getClassLoader();
+        ClassResolverAssociationHandler contextCreateHandler = new ClassResolverAssociationHandler(moduleClassLoader);
+        depUnit.putAttachment(CLASS_RESOLVER_ASSOCIATION_HANDLER_ATTACHMENT_KEY, contextCreateHandler);
+        createHandlerRegistry.addContextCreateHandler(moduleClassLoader, contextCreateHandler);
+    }
+
+    public void undeploy(DeploymentUnit depUnit) {
+        ContextCreateHandlerRegistry createHandlerRegistry = depUnit.getAttachment(CamelConstants.CONTEXT_CREATE_HANDLER_REGISTRY_KEY);
+        if (createHandlerRegistry != null) {
+            final ClassResolverAssociationHandler handler = depUnit.removeAttachment(CLASS_RESOLVER_ASSOCIATION_HANDLER_ATTACHMENT_KEY);
+            if (handler != null) {
+                final ModuleClassLoader classLoader = depUnit.getAttachment(Attachments.MODULE).getClassLoader();
+                createHandlerRegistry.removeContextCreateHandler(classLoader, handler);
+                final ClassLookupCache cache = handler.getLookupCache();
+                LOGGER.debug("Dropping class lookup cache of {}: {} entries, hit ratio {}, miss ratio {}",
+                        new Object[] { depUnit.getName(), cache.size(), cache.getHitRatio(), cache.getMissRatio() });
+            }
+        }
+    }
+}
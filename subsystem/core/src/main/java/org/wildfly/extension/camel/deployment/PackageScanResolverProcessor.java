@@ -28,10 +28,12 @@ import org.jboss.as.server.deployment.DeploymentPhaseContext;
 import org.jboss.as.server.deployment.DeploymentUnit;
 import org.jboss.as.server.deployment.DeploymentUnitProcessingException;
 import org.jboss.as.server.deployment.DeploymentUnitProcessor;
+import org.jboss.as.server.deployment.annotation.CompositeIndex;
 import org.jboss.modules.ModuleClassLoader;
 import org.wildfly.extension.camel.CamelConstants;
 import org.wildfly.extension.camel.ContextCreateHandler;
 import org.wildfly.extension.camel.ContextCreateHandlerRegistry;
+import org.wildfly.extension.camel.handler.DeploymentClassIndex;
 import org.wildfly.extension.camel.handler.PackageScanClassResolverAssociationHandler;
 
 /**
@@ -54,11 +56,20 @@ public class PackageScanResolverProcessor implements DeploymentUnitProcessor {
 
         ContextCreateHandlerRegistry createHandlerRegistry = depUnit.getAttachment(CamelConstants.CONTEXT_CREATE_HANDLER_REGISTRY_KEY);
         ModuleClassLoader moduleClassLoader = depUnit.getAttachment(Attachments.MODULE).getClassLoader();
-        PackageScanClassResolverAssociationHandler contextCreateHandler = new PackageScanClassResolverAssociationHandler(moduleClassLoader);
+        PackageScanClassResolverAssociationHandler contextCreateHandler = new PackageScanClassResolverAssociationHandler(moduleClassLoader, getClassIndex(depUnit));
         depUnit.putAttachment(PACKAGE_SCAN_ASSOCIATION_HANDLER_ATTACHMENT_KEY, contextCreateHandler);
         createHandlerRegistry.addContextCreateHandler(moduleClassLoader, contextCreateHandler);
     }
 
+    /**
+     * The annotation index is discarded once the deployment is installed, so only the relations needed by package
+     * scans are retained
+     */
+    private DeploymentClassIndex getClassIndex(DeploymentUnit depUnit) {
+        CompositeIndex index = depUnit.getAttachment(Attachments.COMPOSITE_ANNOTATION_INDEX);
+        return index != null ? DeploymentClassIndex.create(index) : null;
+    }
+
     public void undeploy(DeploymentUnit depUnit) {
         ContextCreateHandlerRegistry createHandlerRegistry = depUnit.getAttachment(CamelConstants.CONTEXT_CREATE_HANDLER_REGISTRY_KEY);
         if (createHandlerRegistry != null) {
@@ -0,0 +1,132 @@
+/*
+ * #%L
+ * Wildfly Camel :: Subsystem
+ * %%
+ * Copyright (C) 2013 - 2020 RedHat
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wildfly.extension.camel.handler;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * The results of class and resource lookups in a single module, including the lookups that found nothing.
+ * <p>
+ * Camel probes many optional class and resource names. Caching the misses avoids asking the module class loader,
+ * and taking its exception path, over and over for names that are known not to exist. Each kind of lookup holds at
+ * most {@link #MAX_ENTRIES} results; further results are not cached. The cache is dropped together with the context
+ * or the deployment that created it.
+ *
+ * @since 16-Oct-2020
+ */
+public final class ClassLookupCache {
+
+    static final int MAX_ENTRIES = 4096;
+
+    /** Marks a cached lookup that found nothing */
+    private static final Object MISSING = new Object();
+
+    private final ConcurrentMap<String, Object> classes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Object> resources = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Object> allResources = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    ClassLookupCache() {
+    }
+
+    /**
+     * @return the cached class for the given name or the one found by the given lookup, which may be {@code null}
+     */
+    Class<?> getClass(String className, Function<String, Class<?>> lookup) {
+        return get(classes, className, lookup);
+    }
+
+    /**
+     * @return the cached resource for the given name or the one found by the given lookup, which may be {@code null}
+     */
+    <T> T getResource(String name, Function<String, T> lookup) {
+        return get(resources, name, lookup);
+    }
+
+    /**
+     * @return the cached resources for the given name or the ones found by the given lookup, which may be {@code null}
+     */
+    <T> T getAllResources(String name, Function<String, T> lookup) {
+        return get(allResources, name, lookup);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(ConcurrentMap<String, Object> map, String name, Function<String, ? extends T> lookup) {
+        Object cached = map.get(name);
+        if (cached != null) {
+            hits.increment();
+            return cached != MISSING ? (T) cached : null;
+        }
+        misses.increment();
+        T result = lookup.apply(name);
+        if (map.size() < MAX_ENTRIES) {
+            map.putIfAbsent(name, result != null ? result : MISSING);
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of lookups answered from this cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups that were passed on to the class loader
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the share of lookups answered from this cache
+     */
+    public double getHitRatio() {
+        long hitCount = getHits();
+        long total = hitCount + getMisses();
+        return total > 0 ? (double) hitCount / total : 0.0;
+    }
+
+    /**
+     * @return the share of lookups passed on to the class loader
+     */
+    public double getMissRatio() {
+        long missCount = getMisses();
+        long total = getHits() + missCount;
+        return total > 0 ? (double) missCount / total : 0.0;
+    }
+
+    /**
+     * @return the number of cached lookup results
+     */
+    public int size() {
+        return classes.size() + resources.size() + allResources.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ClassLookupCache[size=%d,hits=%d,misses=%d,hitRatio=%.2f]", size(), getHits(), getMisses(), getHitRatio());
+    }
+}
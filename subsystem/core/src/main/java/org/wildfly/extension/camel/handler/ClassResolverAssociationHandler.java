@@ -28,11 +28,35 @@ import org.wildfly.extension.camel.ContextCreateHandler;
 /**
  * A {@link ContextCreateHandler} for ClassResolver association
  *
+ * A handler created for a deployment class loader lets the resolvers of all contexts of the deployment share a
+ * {@link ClassLookupCache}. It is registered and removed together with the deployment, so the cache never outlives
+ * it. The default handler gives each context a cache of its own.
+ *
  * @author Thomas.Diesler@jboss.com
  * @since 13-Mar-2015
  */
 public final class ClassResolverAssociationHandler implements ContextCreateHandler {
 
+    private final ModuleClassLoader moduleClassLoader;
+    private final ClassLookupCache lookupCache;
+
+    public ClassResolverAssociationHandler() {
+        this.moduleClassLoader = null;
+        this.lookupCache = null;
+    }
+
+    public ClassResolverAssociationHandler(ModuleClassLoader moduleClassLoader) {
+        this.moduleClassLoader = moduleClassLoader;
+        this.lookupCache = new ClassLookupCache();
+    }
+
+    /**
+     * @return the lookup cache shared by the contexts of the deployment or {@code null} for the default handler
+     */
+    public ClassLookupCache getLookupCache() {
+        return lookupCache;
+    }
+
     @Override
     public void setup(CamelContext camelctx) {
 
@@ -41,6 +65,10 @@ public final class ClassResolverAssociationHandler implements ContextCreateHandl
         IllegalStateAssertion.assertTrue(classLoader instanceof ModuleClassLoader, "Invalid class loader association: " + classLoader);
 
         ModuleClassLoader moduleClassLoader = (ModuleClassLoader) classLoader;
-        camelctx.setClassResolver(new WildFlyClassResolver(moduleClassLoader));
+        if (lookupCache != null && moduleClassLoader == this.moduleClassLoader) {
+            camelctx.setClassResolver(new WildFlyClassResolver(moduleClassLoader, lookupCache));
+        } else {
+            camelctx.setClassResolver(new WildFlyClassResolver(moduleClassLoader));
+        }
     }
 }
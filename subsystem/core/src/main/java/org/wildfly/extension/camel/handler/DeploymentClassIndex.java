@@ -0,0 +1,209 @@
+/*
+ * #%L
+ * Wildfly Camel :: Subsystem
+ * %%
+ * Copyright (C) 2013 - 2020 RedHat
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wildfly.extension.camel.handler;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Inherited;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.jboss.as.server.deployment.annotation.CompositeIndex;
+import org.jboss.jandex.AnnotationInstance;
+import org.jboss.jandex.AnnotationTarget;
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+
+/**
+ * The class names of a deployment and the relations between them that package scans need, taken from its annotation
+ * index.
+ * <p>
+ * The annotation index is discarded once the deployment is installed, so only the class level annotations and the
+ * direct super types of each class are retained, by name. From these the classes that may be annotated with, or
+ * assignable to, the types of a scan are derived like {@link CompositeIndex#getAnnotations(DotName)},
+ * {@link CompositeIndex#getAllKnownImplementors(DotName)} and {@link CompositeIndex#getAllKnownSubclasses(DotName)}
+ * would. Unlike these, super types and annotation types outside the deployment are resolved by loading them, so that
+ * classes extending a library class that implements a scanned type, or carrying a library annotation that is meta
+ * annotated with a scanned annotation, are found as well.
+ *
+ * @since 16-Oct-2020
+ */
+public final class DeploymentClassIndex {
+
+    private static final String OBJECT_NAME = Object.class.getName();
+
+    private final NavigableSet<String> classNames;
+    /** The names of the classes that carry a given class level annotation */
+    private final Map<String, Set<String>> annotatedClasses;
+    /** The names of the classes that directly extend or implement a given type */
+    private final Map<String, Set<String>> directSubtypes;
+
+    DeploymentClassIndex(NavigableSet<String> classNames, Map<String, Set<String>> annotatedClasses, Map<String, Set<String>> directSubtypes) {
+        this.classNames = Collections.unmodifiableNavigableSet(classNames);
+        this.annotatedClasses = annotatedClasses;
+        this.directSubtypes = directSubtypes;
+    }
+
+    public static DeploymentClassIndex create(CompositeIndex index) {
+        NavigableSet<String> classNames = new TreeSet<>();
+        Map<String, Set<String>> annotatedClasses = new HashMap<>();
+        Map<String, Set<String>> directSubtypes = new HashMap<>();
+        for (ClassInfo classInfo : index.getKnownClasses()) {
+            String className = classInfo.name().toString();
+            classNames.add(className);
+            for (Map.Entry<DotName, List<AnnotationInstance>> entry : classInfo.annotations().entrySet()) {
+                for (AnnotationInstance instance : entry.getValue()) {
+                    if (instance.target() != null && instance.target().kind() == AnnotationTarget.Kind.CLASS) {
+                        annotatedClasses.computeIfAbsent(entry.getKey().toString(), k -> new LinkedHashSet<>()).add(className);
+                        break;
+                    }
+                }
+            }
+            if (classInfo.superName() != null) {
+                directSubtypes.computeIfAbsent(classInfo.superName().toString(), k -> new LinkedHashSet<>()).add(className);
+            }
+            for (DotName interfaceName : classInfo.interfaceNames()) {
+                directSubtypes.computeIfAbsent(interfaceName.toString(), k -> new LinkedHashSet<>()).add(className);
+            }
+        }
+        return new DeploymentClassIndex(classNames, annotatedClasses, directSubtypes);
+    }
+
+    /**
+     * @return the sorted names of all classes in the deployment
+     */
+    NavigableSet<String> getClassNames() {
+        return classNames;
+    }
+
+    /**
+     * @return the sorted names of the classes that carry any of the given annotations, directly, through a meta
+     *         annotation or inherited from a super class
+     */
+    NavigableSet<String> getAnnotatedCandidates(Set<Class<?>> annotations, ClassLoader classLoader) {
+        NavigableSet<String> result = new TreeSet<>();
+        Set<String> inheritedFrom = new LinkedHashSet<>();
+        for (Map.Entry<String, Set<String>> entry : annotatedClasses.entrySet()) {
+            Class<?> annotationType = null;
+            boolean matches = false;
+            for (Class<?> annotation : annotations) {
+                if (annotation.getName().equals(entry.getKey())) {
+                    annotationType = annotation;
+                    matches = true;
+                    break;
+                }
+            }
+            if (!matches) {
+                annotationType = loadClass(entry.getKey(), classLoader);
+                matches = annotationType != null && isMetaAnnotated(annotationType, annotations);
+            }
+            if (matches) {
+                result.addAll(entry.getValue());
+                if (annotationType.isAnnotationPresent(Inherited.class)) {
+                    inheritedFrom.addAll(entry.getValue());
+                }
+            }
+        }
+        addAllSubtypes(inheritedFrom, result);
+        return result;
+    }
+
+    /**
+     * @return the sorted names of the classes that are assignable to any of the given types
+     */
+    NavigableSet<String> getAssignableCandidates(Set<Class<?>> types, ClassLoader classLoader) {
+        Set<String> roots = new LinkedHashSet<>();
+        for (Class<?> type : types) {
+            roots.add(type.getName());
+        }
+        // Super types outside the deployment that are themselves assignable to a scanned type
+        for (String typeName : directSubtypes.keySet()) {
+            if (classNames.contains(typeName) || roots.contains(typeName) || OBJECT_NAME.equals(typeName)) {
+                continue;
+            }
+            Class<?> superType = loadClass(typeName, classLoader);
+            if (superType != null && isAssignableToAny(superType, types)) {
+                roots.add(typeName);
+            }
+        }
+        NavigableSet<String> result = new TreeSet<>();
+        for (String root : roots) {
+            if (classNames.contains(root)) {
+                result.add(root);
+            }
+        }
+        addAllSubtypes(roots, result);
+        return result;
+    }
+
+    private void addAllSubtypes(Set<String> typeNames, Set<String> result) {
+        Set<String> visited = new LinkedHashSet<>(typeNames);
+        Deque<String> pending = new ArrayDeque<>(typeNames);
+        while (!pending.isEmpty()) {
+            Set<String> subtypes = directSubtypes.get(pending.poll());
+            if (subtypes != null) {
+                for (String subtype : subtypes) {
+                    if (visited.add(subtype)) {
+                        result.add(subtype);
+                        pending.add(subtype);
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isMetaAnnotated(Class<?> annotationType, Set<Class<?>> annotations) {
+        if (!annotationType.isAnnotation()) {
+            return false;
+        }
+        for (Annotation meta : annotationType.getAnnotations()) {
+            for (Class<?> annotation : annotations) {
+                if (annotation.getName().equals(meta.annotationType().getName())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAssignableToAny(Class<?> type, Set<Class<?>> types) {
+        for (Class<?> parent : types) {
+            if (parent.isAssignableFrom(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Class<?> loadClass(String className, ClassLoader classLoader) {
+        try {
+            return classLoader.loadClass(className);
+        } catch (ClassNotFoundException | LinkageError ex) {
+            return null;
+        }
+    }
+}
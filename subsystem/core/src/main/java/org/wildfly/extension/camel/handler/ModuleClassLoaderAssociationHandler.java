@@ -33,6 +33,8 @@ import org.wildfly.extension.camel.service.CamelContextRegistryService;
 /**
  * A {@link ContextCreateHandler} for ApplicationContextClassLoader association
  *
+ * The module of a context is obtained from the first {@link ModuleResolver} that finds one.
+ *
  * @author Thomas.Diesler@jboss.com
  * @since 13-Mar-2015
  */
@@ -40,61 +42,75 @@ public final class ModuleClassLoaderAssociationHandler implements ContextCreateH
 
     private static ThreadLocal<ModuleClassLoader> moduleClassLoaderAssociation = new ThreadLocal<>();
 
-    @Override
-    public void setup(CamelContext camelctx) {
-        ModuleClassLoader moduleClassLoader = getModuleClassLoader(camelctx);
-        camelctx.setApplicationContextClassLoader(moduleClassLoader);
-    }
-
-    public static void associate(ModuleClassLoader modcl) {
-        moduleClassLoaderAssociation.set(modcl);
-    }
+    /**
+     * A strategy to obtain the module of a {@link CamelContext}
+     */
+    private interface ModuleResolver {
 
-    public static void disassociate() {
-        moduleClassLoaderAssociation.remove();
+        /** Get the module for the given context or null if this strategy does not apply */
+        Module getModule(CamelContext camelctx);
     }
 
-    public static ModuleClassLoader getModuleClassLoader(CamelContext camelctx) {
-        Module contextModule = null;
+    private static final ModuleResolver[] DEFAULT_RESOLVERS = new ModuleResolver[] {
 
-        // Case #1: The context has already been initialized
-        ClassLoader applicationClassLoader = camelctx.getApplicationContextClassLoader();
-        if (applicationClassLoader instanceof ModuleClassLoader) {
-            contextModule = ((ModuleClassLoader) applicationClassLoader).getModule();
-        }
+        // Case #1: The module classloader has been associated explicitly
+        camelctx -> {
+            ModuleClassLoader moduleClassLoader = moduleClassLoaderAssociation.get();
+            return moduleClassLoader != null ? moduleClassLoader.getModule() : null;
+        },
 
-        // Case #2: The module classloader has been associated explicitly
-        ModuleClassLoader moduleClassLoader = moduleClassLoaderAssociation.get();
-        if (moduleClassLoader != null) {
-            contextModule = moduleClassLoader.getModule();
-        }
+        // Case #2: The context has already been initialized
+        camelctx -> {
+            ClassLoader applicationClassLoader = camelctx.getApplicationContextClassLoader();
+            return applicationClassLoader instanceof ModuleClassLoader ? ((ModuleClassLoader) applicationClassLoader).getModule() : null;
+        },
 
         // Case #3: The context is a system context
-        if (contextModule == null) {
+        camelctx -> {
             ClassLoader thiscl = CamelContextRegistryService.class.getClassLoader();
             ClassLoader tccl = SecurityActions.getContextClassLoader();
-            if (tccl == thiscl) {
-                contextModule = ((ModuleClassLoader) thiscl).getModule();
-            }
-        }
+            return tccl == thiscl ? ((ModuleClassLoader) thiscl).getModule() : null;
+        },
 
         // Case #4: The context is created as part of a deployment
-        if (contextModule == null) {
+        camelctx -> {
             ClassLoader tccl = SecurityActions.getContextClassLoader();
             if (tccl instanceof ModuleClassLoader) {
                 Module tcm = ((ModuleClassLoader) tccl).getModule();
                 if (tcm.getIdentifier().getName().startsWith("deployment.")) {
-                    contextModule = tcm;
+                    return tcm;
                 }
             }
+            return null;
         }
+    };
 
-        // Case #5: The context is created through user API
-        if (contextModule == null) {
-            Class<?> callingClass = CallerContext.getCallingClass();
-            contextModule = ((ModuleClassLoader) callingClass.getClassLoader()).getModule();
-        }
+    // Case #5: The context is created through user API
+    private static final ModuleResolver CALLER_RESOLVER = camelctx -> CallerContext.getCallingModule();
 
+    @Override
+    public void setup(CamelContext camelctx) {
+        ModuleClassLoader moduleClassLoader = getModuleClassLoader(camelctx);
+        camelctx.setApplicationContextClassLoader(moduleClassLoader);
+    }
+
+    public static void associate(ModuleClassLoader modcl) {
+        moduleClassLoaderAssociation.set(modcl);
+    }
+
+    public static void disassociate() {
+        moduleClassLoaderAssociation.remove();
+    }
+
+    public static ModuleClassLoader getModuleClassLoader(CamelContext camelctx) {
+        Module contextModule = null;
+        for (ModuleResolver resolver : DEFAULT_RESOLVERS) {
+            contextModule = resolver.getModule(camelctx);
+            if (contextModule != null) {
+                return contextModule.getClassLoader();
+            }
+        }
+        contextModule = CALLER_RESOLVER.getModule(camelctx);
         IllegalStateAssertion.assertNotNull(contextModule, "Cannot obtain module for: " + camelctx);
         return contextModule.getClassLoader();
     }
@@ -105,24 +121,41 @@ public final class ModuleClassLoaderAssociationHandler implements ContextCreateH
         private CallerContext() {
         }
 
-        private static Hack hack = AccessController.doPrivileged(new PrivilegedAction<Hack>() {
-            public Hack run() {
-                return new Hack();
+        private static final StackWalker walker = AccessController.doPrivileged(new PrivilegedAction<StackWalker>() {
+            public StackWalker run() {
+                return StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
             }
         });
 
-        static Class<?> getCallingClass() {
-            Class<?> stack[] = hack.getClassContext();
-            int i = 3;
-            while (stack[i] == stack[2]) {
-                if (++i >= stack.length)
-                    return null;
+        private static final ClassValue<Boolean> ignoredCallers = new ClassValue<Boolean>() {
+            @Override
+            protected Boolean computeValue(Class<?> type) {
+                return ignoreCaller(type.getName());
             }
-            Class<?> result = stack[i];
-            while (ignoreCaller(result.getName())) {
-                result = stack[++i];
+        };
+
+        private static final ClassValue<Module> callerModules = new ClassValue<Module>() {
+            @Override
+            protected Module computeValue(Class<?> type) {
+                ClassLoader classLoader = type.getClassLoader();
+                return classLoader instanceof ModuleClassLoader ? ((ModuleClassLoader) classLoader).getModule() : null;
             }
-            return result;
+        };
+
+        /**
+         * Walks the stack only as far as the first frame that does not belong to wildfly-camel, spring or camel
+         */
+        static Class<?> getCallingClass() {
+            return walker.walk(frames -> frames
+                    .map(StackWalker.StackFrame::getDeclaringClass)
+                    .filter(type -> !ignoredCallers.get(type))
+                    .findFirst()
+                    .orElse(null));
+        }
+
+        static Module getCallingModule() {
+            Class<?> callingClass = getCallingClass();
+            return callingClass != null ? callerModules.get(callingClass) : null;
         }
 
         private static boolean ignoreCaller(String caller) {
@@ -131,11 +164,5 @@ public final class ModuleClassLoaderAssociationHandler implements ContextCreateH
             result |= caller.startsWith("org.apache.camel");
             return result;
         }
-
-        private static final class Hack extends SecurityManager {
-            protected Class<?>[] getClassContext() {
-                return super.getClassContext();
-            }
-        }
     }
 }
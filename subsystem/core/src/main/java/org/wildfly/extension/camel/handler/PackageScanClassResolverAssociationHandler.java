@@ -21,8 +21,17 @@ package org.wildfly.extension.camel.handler;
 
 import static org.wildfly.extension.camel.CamelLogger.LOGGER;
 
+import java.lang.annotation.Annotation;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NavigableSet;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
 
 import org.apache.camel.CamelContext;
 import org.apache.camel.ExtendedCamelContext;
@@ -36,15 +45,33 @@ import org.wildfly.extension.camel.ContextCreateHandler;
 /**
  * A {@link ContextCreateHandler} for PackageScanClassResolver association
  *
+ * If the classes of the deployment are known from its annotation index, see {@link DeploymentClassIndex}, package
+ * scans for annotated classes and for implementations only load the classes of the scanned package that may carry
+ * the annotations or implement the parent types; scans by an arbitrary filter load all classes of the package. The
+ * classes of the package in the module dependencies are always added. The results of scans for annotated classes and
+ * for implementations are cached per package and annotation or parent types for the lifetime of the deployment.
+ * Scans by an arbitrary filter and scans narrowed down by filters added to the resolver are not cached.
+ *
  * @author Thomas.Diesler@jboss.com
  * @since 13-Mar-2015
  */
 public final class PackageScanClassResolverAssociationHandler implements ContextCreateHandler {
 
     private final ModuleClassLoader moduleClassLoader;
+    private final DeploymentClassIndex classIndex;
+    private final ConcurrentMap<ScanCriteria, NavigableSet<String>> candidates = new ConcurrentHashMap<>();
+    private final ConcurrentMap<ScanKey, Set<Class<?>>> scanResults = new ConcurrentHashMap<>();
 
     public PackageScanClassResolverAssociationHandler(ModuleClassLoader moduleClassLoader) {
+        this(moduleClassLoader, null);
+    }
+
+    /**
+     * @param classIndex the classes of the deployment or {@code null} to scan the resources of the module instead
+     */
+    public PackageScanClassResolverAssociationHandler(ModuleClassLoader moduleClassLoader, DeploymentClassIndex classIndex) {
         this.moduleClassLoader = moduleClassLoader;
+        this.classIndex = classIndex;
     }
 
     @Override
@@ -53,12 +80,56 @@ public final class PackageScanClassResolverAssociationHandler implements Context
         ((ExtendedCamelContext) camelctx).setPackageScanClassResolver(resolver);
     }
 
-    static final class PackageScanClassResolverImpl extends DefaultPackageScanClassResolver {
+    final class PackageScanClassResolverImpl extends DefaultPackageScanClassResolver {
+
+        /** The criteria of the scan in progress on the current thread, if known */
+        private final ThreadLocal<ScanCriteria> scanCriteria = new ThreadLocal<>();
+        /** The filters added to this resolver, which narrow down every scan */
+        private final Set<PackageScanFilter> addedFilters = ConcurrentHashMap.newKeySet();
 
         PackageScanClassResolverImpl(ModuleClassLoader classLoader) {
             addClassLoader(classLoader);
         }
 
+        @Override
+        public void addFilter(PackageScanFilter filter) {
+            super.addFilter(filter);
+            addedFilters.add(filter);
+        }
+
+        @Override
+        public void removeFilter(PackageScanFilter filter) {
+            super.removeFilter(filter);
+            addedFilters.remove(filter);
+        }
+
+        @Override
+        public Set<Class<?>> findAnnotated(Class<? extends Annotation> annotation, String... packageNames) {
+            return findWith(new ScanCriteria(ScanCriteria.ANNOTATED_WITH, Collections.singleton(annotation)), () -> super.findAnnotated(annotation, packageNames));
+        }
+
+        @Override
+        public Set<Class<?>> findAnnotated(Set<Class<? extends Annotation>> annotations, String... packageNames) {
+            return findWith(new ScanCriteria(ScanCriteria.ANNOTATED_WITH, annotations), () -> super.findAnnotated(annotations, packageNames));
+        }
+
+        @Override
+        public Set<Class<?>> findImplementations(Class<?> parent, String... packageNames) {
+            return findWith(new ScanCriteria(ScanCriteria.ASSIGNABLE_TO, Collections.singleton(parent)), () -> super.findImplementations(parent, packageNames));
+        }
+
+        private Set<Class<?>> findWith(ScanCriteria criteria, Supplier<Set<Class<?>>> finder) {
+            if (criteria.types.contains(null)) {
+                return finder.get();
+            }
+            scanCriteria.set(criteria);
+            try {
+                return finder.get();
+            } finally {
+                scanCriteria.remove();
+            }
+        }
+
         @Override
         protected void find(PackageScanFilter filter, String packageName, ClassLoader classLoader, Set<Class<?>> classes) {
             LOGGER.debug("Searching for: {} in package: {} using classloader: {}", new Object[] { filter, packageName, classLoader });
@@ -69,31 +140,131 @@ public final class PackageScanClassResolverAssociationHandler implements Context
                 return;
             }
 
-            int classLoadCount = classes.size();
+            ScanCriteria criteria = scanCriteria.get();
+            // Added filters narrow down the scan, which makes its result specific to them
+            boolean cacheable = classLoader == moduleClassLoader && criteria != null && addedFilters.isEmpty();
+            ScanKey key = cacheable ? new ScanKey(packageName, criteria) : null;
+            Set<Class<?>> result = key != null ? scanResults.get(key) : null;
+            if (result == null) {
+                result = new LinkedHashSet<>();
+                if (classLoader == moduleClassLoader && classIndex != null) {
+                    findIndexed(filter, packageName, criteria, result);
+                } else {
+                    findResources(filter, packageName, (ModuleClassLoader) classLoader, result);
+                }
+
+                // Add the classes of the package in the module dependencies, which the scan above does not see
+                super.find(filter, packageName, classLoader, result);
+
+                if (key != null) {
+                    scanResults.putIfAbsent(key, Collections.unmodifiableSet(result));
+                }
+            }
+            classes.addAll(result);
+        }
+
+        private void findIndexed(PackageScanFilter filter, String packageName, ScanCriteria criteria, Set<Class<?>> classes) {
+            String prefix = packageName.replace('/', '.');
+            if (prefix.endsWith(".")) {
+                prefix = prefix.substring(0, prefix.length() - 1);
+            }
+            NavigableSet<String> candidateNames = criteria != null ? getCandidates(criteria) : classIndex.getClassNames();
+            // Names in the package and its subpackages sort between "prefix." and "prefix/"
+            Set<String> classNames = prefix.isEmpty() ? candidateNames : candidateNames.subSet(prefix + ".", true, prefix + "/", false);
+            for (String className : classNames) {
+                addMatching(filter, className, moduleClassLoader, classes);
+            }
+        }
+
+        private NavigableSet<String> getCandidates(ScanCriteria criteria) {
+            return candidates.computeIfAbsent(criteria, key -> {
+                if (ScanCriteria.ANNOTATED_WITH.equals(key.kind)) {
+                    return classIndex.getAnnotatedCandidates(key.types, moduleClassLoader);
+                } else {
+                    return classIndex.getAssignableCandidates(key.types, moduleClassLoader);
+                }
+            });
+        }
 
-            ModuleClassLoader moduleClassLoader = (ModuleClassLoader) classLoader;
-            Iterator<Resource> itres = moduleClassLoader.iterateResources("/", true);
+        private void findResources(PackageScanFilter filter, String packageName, ModuleClassLoader classLoader, Set<Class<?>> classes) {
+            Iterator<Resource> itres = classLoader.iterateResources("/", true);
             while (itres.hasNext()) {
                 Resource resource = itres.next();
                 String resname = resource.getName();
                 if (resname.startsWith(packageName) && resname.endsWith(".class")) {
                     String className = resname.substring(0, resname.length() - 6).replace('/', '.');
-                    try {
-                        Class<?> loadedClass = moduleClassLoader.loadClass(className);
-                        if (filter.matches(loadedClass)) {
-                            LOGGER.debug("Found type in package scan: {}", loadedClass.getName());
-                            classes.add(loadedClass);
-                        }
-                    } catch (ClassNotFoundException ex) {
-                        //ignore
-                    }
+                    addMatching(filter, className, classLoader, classes);
                 }
             }
+        }
 
-            // No classes found by previous package scan so delegate to super
-            if(classes.size() == classLoadCount) {
-                super.find(filter, packageName, classLoader, classes);
+        private void addMatching(PackageScanFilter filter, String className, ClassLoader classLoader, Set<Class<?>> classes) {
+            try {
+                Class<?> loadedClass = classLoader.loadClass(className);
+                if (filter.matches(loadedClass)) {
+                    LOGGER.debug("Found type in package scan: {}", loadedClass.getName());
+                    classes.add(loadedClass);
+                }
+            } catch (ClassNotFoundException | LinkageError ex) {
+                //ignore
+            }
+        }
+    }
+
+    /**
+     * The criteria of a scan for classes annotated with any of the given annotations or assignable to any of the given
+     * parent types.
+     */
+    static final class ScanCriteria {
+
+        static final String ANNOTATED_WITH = "annotated-with";
+        static final String ASSIGNABLE_TO = "assignable-to";
+
+        private final String kind;
+        private final Set<Class<?>> types;
+
+        ScanCriteria(String kind, Set<? extends Class<?>> types) {
+            this.kind = kind;
+            this.types = new HashSet<>(types);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, types);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ScanCriteria)) {
+                return false;
+            }
+            ScanCriteria other = (ScanCriteria) obj;
+            return kind.equals(other.kind) && types.equals(other.types);
+        }
+    }
+
+    static final class ScanKey {
+
+        private final String packageName;
+        private final ScanCriteria criteria;
+
+        ScanKey(String packageName, ScanCriteria criteria) {
+            this.packageName = packageName;
+            this.criteria = criteria;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(packageName, criteria);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ScanKey)) {
+                return false;
             }
+            ScanKey other = (ScanKey) obj;
+            return packageName.equals(other.packageName) && criteria.equals(other.criteria);
         }
     }
 }
@@ -24,8 +24,11 @@ import static org.wildfly.extension.camel.CamelLogger.LOGGER;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URL;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.List;
 
 import javax.lang.model.SourceVersion;
 
@@ -40,6 +43,9 @@ import org.wildfly.camel.utils.IllegalArgumentAssertion;
 /**
  * A class resolver that delegates to a module class loader
  *
+ * The results of class and resource lookups are kept in a {@link ClassLookupCache} that may be shared by the
+ * resolvers of the same module.
+ *
  * @author Thomas.Diesler@jboss.com
  * @since 11-Feb-2015
  */
@@ -47,19 +53,31 @@ final class WildFlyClassResolver extends DefaultClassResolver {
 
     private final ModuleClassLoader classLoader;
     private final ModuleIdentifier moduleId;
+    private final ClassLookupCache lookupCache;
 
     WildFlyClassResolver(Module module) {
         IllegalArgumentAssertion.assertNotNull(module, "module");
         this.classLoader = module.getClassLoader();
         this.moduleId = module.getIdentifier();
+        this.lookupCache = new ClassLookupCache();
     }
 
     WildFlyClassResolver(ClassLoader classLoader) {
+        this(classLoader, new ClassLookupCache());
+    }
+
+    WildFlyClassResolver(ClassLoader classLoader, ClassLookupCache lookupCache) {
         IllegalArgumentAssertion.assertNotNull(classLoader, "classLoader");
+        IllegalArgumentAssertion.assertNotNull(lookupCache, "lookupCache");
         IllegalArgumentAssertion.assertTrue(classLoader instanceof ModuleClassLoader, "ModuleClassLoader required: " + classLoader);
         Module module = ((ModuleClassLoader) classLoader).getModule();
         this.classLoader = module.getClassLoader();
         this.moduleId = module.getIdentifier();
+        this.lookupCache = lookupCache;
+    }
+
+    ClassLookupCache getLookupCache() {
+        return lookupCache;
     }
 
     @Override
@@ -67,11 +85,14 @@ final class WildFlyClassResolver extends DefaultClassResolver {
         IllegalArgumentAssertion.assertNotNull(className, "className");
         Class<?> loadedClass = null;
         if (SourceVersion.isName(className) && className.contains(".")) {
-            try {
-                loadedClass = classLoader.loadClass(className);
-            } catch (ClassNotFoundException e) {
-                LOGGER.debug("Cannot load '{}' from module: {}", className, moduleId);
-            }
+            loadedClass = lookupCache.getClass(className, name -> {
+                try {
+                    return classLoader.loadClass(name);
+                } catch (ClassNotFoundException e) {
+                    LOGGER.debug("Cannot load '{}' from module: {}", name, moduleId);
+                    return null;
+                }
+            });
         }
         return loadedClass;
     }
@@ -79,21 +100,32 @@ final class WildFlyClassResolver extends DefaultClassResolver {
     public InputStream loadResourceAsStream(String uri) {
         IllegalArgumentAssertion.assertNotNull(uri, "uri");
         String resolvedName = FileUtil.compactPath(uri, '/');
+        // Open a fresh stream for every call, but skip the lookup of resources known to be missing
+        if (lookupCache.getResource(resolvedName, classLoader::getResource) == null) {
+            return null;
+        }
         return classLoader.getResourceAsStream(resolvedName);
     }
 
     public URL loadResourceAsURL(String uri) {
         IllegalArgumentAssertion.assertNotNull(uri, "uri");
         String resolvedName = FileUtil.compactPath(uri, '/');
-        return classLoader.getResource(resolvedName);
+        return lookupCache.getResource(resolvedName, classLoader::getResource);
     }
 
     @Override
     public Enumeration<URL> loadAllResourcesAsURL(String packageName) {
         IllegalArgumentAssertion.assertNotNull(packageName, "packageName");
         try {
-            return classLoader.getResources(packageName);
-        } catch (IOException e) {
+            List<URL> urls = lookupCache.getAllResources(packageName, name -> {
+                try {
+                    return Collections.list(classLoader.getResources(name));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return Collections.enumeration(urls);
+        } catch (UncheckedIOException e) {
             LOGGER.warn("Cannot load resources for: {}", packageName);
             return null;
         }
@@ -23,7 +23,11 @@ package org.wildfly.extension.camel.parser;
 import org.jboss.as.controller.AbstractWriteAttributeHandler;
 import org.jboss.as.controller.OperationContext;
 import org.jboss.as.controller.OperationFailedException;
+import org.jboss.as.controller.descriptions.ModelDescriptionConstants;
 import org.jboss.dmr.ModelNode;
+import org.jboss.msc.service.ServiceController;
+import org.wildfly.extension.camel.CamelConstants;
+import org.wildfly.extension.camel.service.CamelContextRegistryService;
 
 /**
  * @author Thomas.Diesler@jboss.com
@@ -43,17 +47,65 @@ final class CamelContextWrite extends AbstractWriteAttributeHandler<Object> {
 
     @Override
     protected boolean applyUpdateToRuntime(OperationContext context, ModelNode operation, String attributeName, ModelNode resolvedValue, ModelNode currentValue, HandbackHolder<Object> handbackHolder) throws OperationFailedException {
-        return doUpdate(context, operation, resolvedValue);
+        String propName = getContextName(operation);
+        CamelContextRegistryService serviceRegistry = getServiceRegistry(context);
+        if (serviceRegistry == null) {
+            return true;
+        }
+        String oldDefinition = serviceRegistry.getContextDefinition(propName);
+        boolean reload = updateCamelContext(serviceRegistry, propName, resolvedValue.asString().trim());
+        handbackHolder.setHandback(new UpdateHandback(oldDefinition, !reload));
+        return reload;
     }
 
     @Override
     protected void revertUpdateToRuntime(OperationContext context, ModelNode operation, String attributeName, ModelNode valueToRestore, ModelNode valueToRevert, Object handback) throws OperationFailedException {
-        doUpdate(context, operation, valueToRestore);
+        CamelContextRegistryService serviceRegistry = getServiceRegistry(context);
+        if (serviceRegistry == null || handback == null) {
+            return;
+        }
+        String propName = getContextName(operation);
+        UpdateHandback update = (UpdateHandback) handback;
+        String oldDefinition = update.oldDefinition != null ? update.oldDefinition : valueToRestore.asString().trim();
+        if (update.runtimeUpdated) {
+            updateCamelContext(serviceRegistry, propName, oldDefinition);
+        } else {
+            serviceRegistry.restoreContextDefinition(propName, oldDefinition);
+        }
     }
 
-    private boolean doUpdate(OperationContext context, ModelNode operation, ModelNode value) {
-        //String propName = operation.get(ModelDescriptionConstants.OP_ADDR).asObject().get(ModelConstants.CONTEXT).asString();
-        //String propValue = value.asString();
-        return true;
+    private static String getContextName(ModelNode operation) {
+        return operation.get(ModelDescriptionConstants.OP_ADDR).asObject().get(ModelConstants.CONTEXT).asString();
+    }
+
+    private static CamelContextRegistryService getServiceRegistry(OperationContext context) {
+        ServiceController<?> container = context.getServiceRegistry(false).getService(CamelConstants.CAMEL_CONTEXT_REGISTRY_SERVICE_NAME);
+        return container != null ? CamelContextRegistryService.class.cast(container.getService()) : null;
+    }
+
+    /**
+     * Applies the given context definition to the running context route by route.
+     *
+     * @return true if a reload is required
+     */
+    private static boolean updateCamelContext(CamelContextRegistryService serviceRegistry, String propName, String propValue) throws OperationFailedException {
+        try {
+            return serviceRegistry.updateCamelContext(propName, propValue);
+        } catch (IllegalStateException ex) {
+            throw new OperationFailedException(ex.getMessage() + ": " + ex.getCause(), ex);
+        }
+    }
+
+    /**
+     * The definition a write replaced and whether the write was applied to the running context.
+     */
+    private static final class UpdateHandback {
+        private final String oldDefinition;
+        private final boolean runtimeUpdated;
+
+        UpdateHandback(String oldDefinition, boolean runtimeUpdated) {
+            this.oldDefinition = oldDefinition;
+            this.runtimeUpdated = runtimeUpdated;
+        }
     }
 }
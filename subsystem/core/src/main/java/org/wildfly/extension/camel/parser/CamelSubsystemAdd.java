@@ -38,6 +38,7 @@ import org.wildfly.extension.camel.deployment.CamelDeploymentSettingsProcessor;
 import org.wildfly.extension.camel.deployment.CamelEndpointDeployerProcessor;
 import org.wildfly.extension.camel.deployment.CamelEndpointDeploymentSchedulerProcessor;
 import org.wildfly.extension.camel.deployment.CamelIntegrationProcessor;
+import org.wildfly.extension.camel.deployment.ClassResolverProcessor;
 import org.wildfly.extension.camel.deployment.PackageScanResolverProcessor;
 import org.wildfly.extension.camel.service.CamelBootstrapService;
 import org.wildfly.extension.camel.service.CamelContextFactoryService;
@@ -63,9 +64,11 @@ public final class CamelSubsystemAdd extends AbstractBoottimeAddStepHandler {
     public static final int DEPENDENCIES_CAMEL_ENDPOINT_DEPLOYMENT_SCHEDULER = DEPENDENCIES_CAMEL_WIRINGS + 0x01;
 
     public static final int INSTALL_PACKAGE_SCAN_RESOLVER = Phase.INSTALL_WS_DEPLOYMENT_ASPECTS + 0x01;
-    public static final int INSTALL_CDI_BEAN_ARCHIVE_PROCESSOR = INSTALL_PACKAGE_SCAN_RESOLVER + 0x01;
+    public static final int INSTALL_CLASS_RESOLVER = INSTALL_PACKAGE_SCAN_RESOLVER + 0x01;
+    public static final int INSTALL_CDI_BEAN_ARCHIVE_PROCESSOR = INSTALL_CLASS_RESOLVER + 0x01;
     public static final int INSTALL_CAMEL_CONTEXT_CREATE = INSTALL_CDI_BEAN_ARCHIVE_PROCESSOR + 0x01;
     public static final int INSTALL_CONTEXT_ACTIVATION = INSTALL_CAMEL_CONTEXT_CREATE + 0x01;
+    public static final int INSTALL_CXF_DEPLOYMENT_BUS = INSTALL_CONTEXT_ACTIVATION + 0x01;
 
     public static final int INSTALL_CAMEL_ENDPOINT_DEPLOYER = Phase.INSTALL_WAR_DEPLOYMENT + 0x01;
 
@@ -106,6 +109,7 @@ public final class CamelSubsystemAdd extends AbstractBoottimeAddStepHandler {
                 processorTarget.addDeploymentProcessor(CamelExtension.SUBSYSTEM_NAME, Phase.DEPENDENCIES, DEPENDENCIES_CAMEL_WIRINGS, new CamelDependenciesProcessor());
                 processorTarget.addDeploymentProcessor(CamelExtension.SUBSYSTEM_NAME, Phase.DEPENDENCIES, DEPENDENCIES_CAMEL_ENDPOINT_DEPLOYMENT_SCHEDULER, new CamelEndpointDeploymentSchedulerProcessor());
                 processorTarget.addDeploymentProcessor(CamelExtension.SUBSYSTEM_NAME, Phase.INSTALL, INSTALL_PACKAGE_SCAN_RESOLVER, new PackageScanResolverProcessor());
+                processorTarget.addDeploymentProcessor(CamelExtension.SUBSYSTEM_NAME, Phase.INSTALL, INSTALL_CLASS_RESOLVER, new ClassResolverProcessor());
                 processorTarget.addDeploymentProcessor(CamelExtension.SUBSYSTEM_NAME, Phase.INSTALL, INSTALL_CAMEL_CONTEXT_CREATE, new CamelContextBootstrapProcessor());
                 processorTarget.addDeploymentProcessor(CamelExtension.SUBSYSTEM_NAME, Phase.INSTALL, INSTALL_CONTEXT_ACTIVATION, new CamelContextActivationProcessor());
                 processorTarget.addDeploymentProcessor(CamelExtension.SUBSYSTEM_NAME, Phase.INSTALL, INSTALL_CAMEL_ENDPOINT_DEPLOYER, new CamelEndpointDeployerProcessor());
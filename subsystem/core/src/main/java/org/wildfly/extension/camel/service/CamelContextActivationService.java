@@ -21,15 +21,23 @@ package org.wildfly.extension.camel.service;
 
 import static org.wildfly.extension.camel.CamelLogger.LOGGER;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.camel.CamelContext;
 import org.apache.camel.spring.SpringCamelContext;
+import org.jboss.msc.inject.Injector;
 import org.jboss.msc.service.AbstractService;
 import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
 import org.jboss.msc.service.StopContext;
+import org.jboss.msc.value.InjectedValue;
 import org.wildfly.camel.proxy.ProxiedAction;
 import org.wildfly.camel.proxy.ProxyUtils;
 import org.wildfly.extension.camel.SpringCamelContextBootstrap;
@@ -37,57 +45,170 @@ import org.wildfly.extension.camel.SpringCamelContextBootstrap;
 /**
  * Activates and starts all {@link SpringCamelContext} instances associated with
  * the application once all dependent services are available
+ * <p>
+ * If parallel start is enabled, the contexts are created, started and closed concurrently on the server executor and
+ * the MSC thread is not blocked meanwhile. Otherwise they are started one after the other and closed in reverse order.
  */
 public final class CamelContextActivationService extends AbstractService<Void> {
 
+    private final InjectedValue<ExecutorService> injectedExecutor = new InjectedValue<>();
     private final List<SpringCamelContextBootstrap> bootstraps;
     private final String runtimeName;
+    private final boolean parallelStart;
 
-    public CamelContextActivationService(List<SpringCamelContextBootstrap> bootstraps, String runtimeName) {
+    public CamelContextActivationService(List<SpringCamelContextBootstrap> bootstraps, String runtimeName, boolean parallelStart) {
         this.bootstraps = bootstraps;
         this.runtimeName = runtimeName;
+        this.parallelStart = parallelStart;
+    }
+
+    public Injector<ExecutorService> getExecutorInjector() {
+        return injectedExecutor;
     }
 
     @Override
     public void start(StartContext context) throws StartException {
-        ClassLoader tccl = SecurityActions.getContextClassLoader();
+        if (parallelStart) {
+            startParallel(context);
+            return;
+        }
+        final List<ActivatedContext> activated = new ArrayList<>();
+        try {
+            for (SpringCamelContextBootstrap bootstrap : bootstraps) {
+                for (ActivatedContext ac : createContexts(bootstrap)) {
+                    activated.add(ac);
+                    ac.start();
+                }
+            }
+        } catch (CompletionException ex) {
+            closeAll(activated);
+            throw (StartException) ex.getCause();
+        }
+    }
+
+    private void startParallel(StartContext context) {
+        final ExecutorService executor = injectedExecutor.getValue();
+        final List<ActivatedContext> activated = new CopyOnWriteArrayList<>();
+        final List<CompletableFuture<Void>> starts = new ArrayList<>();
         for (SpringCamelContextBootstrap bootstrap : bootstraps) {
-            try {
-                SecurityActions.setContextClassLoader(bootstrap.getClassLoader());
-                try {
-                    for (CamelContext camelctx : bootstrap.createSpringCamelContexts()) {
-                        try {
-                            ProxyUtils.invokeProxied(new ProxiedAction() {
-                                @Override
-                                public void run() throws Exception {
-                                    camelctx.start();
-                                }
-                            }, bootstrap.getClassLoader());
-                        } catch (Exception ex) {
-                            throw new StartException("Cannot start camel context: " + camelctx.getName(), ex);
-                        }
-                    }
-                } catch (Exception e) {
-                    throw new StartException("Cannot create camel context: " + runtimeName, e);
+            starts.add(CompletableFuture.supplyAsync(() -> createContexts(bootstrap), executor).thenCompose(created -> {
+                activated.addAll(created);
+                final List<CompletableFuture<Void>> contextStarts = new ArrayList<>();
+                for (ActivatedContext ac : created) {
+                    contextStarts.add(CompletableFuture.runAsync(() -> ac.start(), executor));
                 }
-            } finally {
-                SecurityActions.setContextClassLoader(tccl);
+                return CompletableFuture.allOf(contextStarts.toArray(new CompletableFuture[contextStarts.size()]));
+            }));
+        }
+        context.asynchronous();
+        CompletableFuture.allOf(starts.toArray(new CompletableFuture[starts.size()])).whenComplete((nil, ex) -> {
+            if (ex == null) {
+                context.complete();
+            } else {
+                // Do not leave the contexts that did start running
+                closeAll(activated);
+                final Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                context.failed(cause instanceof StartException ? (StartException) cause : new StartException(cause));
             }
+        });
+    }
+
+    private List<ActivatedContext> createContexts(SpringCamelContextBootstrap bootstrap) {
+        final List<ActivatedContext> result = new ArrayList<>();
+        ClassLoader tccl = SecurityActions.getContextClassLoader();
+        try {
+            SecurityActions.setContextClassLoader(bootstrap.getClassLoader());
+            for (CamelContext camelctx : bootstrap.createSpringCamelContexts()) {
+                result.add(new ActivatedContext(bootstrap.getClassLoader(), camelctx));
+            }
+        } catch (Exception e) {
+            throw new CompletionException(new StartException("Cannot create camel context: " + runtimeName, e));
+        } finally {
+            SecurityActions.setContextClassLoader(tccl);
         }
+        return result;
     }
 
     @Override
     public void stop(StopContext context) {
-        Collections.reverse(bootstraps);
-        for (SpringCamelContextBootstrap bootstrap: bootstraps) {
-            List<SpringCamelContext> camelctxList = bootstrap.getSpringCamelContexts();
-            for (CamelContext camelctx : camelctxList) {
+        if (parallelStart) {
+            stopParallel(context);
+            return;
+        }
+        final List<SpringCamelContextBootstrap> reversed = new ArrayList<>(bootstraps);
+        Collections.reverse(reversed);
+        for (SpringCamelContextBootstrap bootstrap: reversed) {
+            for (CamelContext camelctx : bootstrap.getSpringCamelContexts()) {
+                new ActivatedContext(bootstrap.getClassLoader(), camelctx).close();
+            }
+        }
+    }
+
+    private void stopParallel(StopContext context) {
+        final ExecutorService executor = injectedExecutor.getValue();
+        final List<CompletableFuture<Void>> closes = new ArrayList<>();
+        for (SpringCamelContextBootstrap bootstrap : bootstraps) {
+            for (CamelContext camelctx : bootstrap.getSpringCamelContexts()) {
+                final ActivatedContext ac = new ActivatedContext(bootstrap.getClassLoader(), camelctx);
                 try {
-                    camelctx.close();
-                } catch (Exception ex) {
-                    LOGGER.warn("Cannot stop camel context: " + camelctx.getName(), ex);
+                    closes.add(CompletableFuture.runAsync(() -> ac.close(), executor));
+                } catch (RejectedExecutionException ex) {
+                    // The server executor is shutting down already
+                    ac.close();
                 }
             }
         }
+        context.asynchronous();
+        CompletableFuture.allOf(closes.toArray(new CompletableFuture[closes.size()])).whenComplete((nil, ex) -> context.complete());
+    }
+
+    private static void closeAll(List<ActivatedContext> activated) {
+        final List<ActivatedContext> reversed = new ArrayList<>(activated);
+        Collections.reverse(reversed);
+        for (ActivatedContext ac : reversed) {
+            ac.close();
+        }
+    }
+
+    /**
+     * A {@link CamelContext} together with the class loader of its bootstrap.
+     */
+    private static final class ActivatedContext {
+        private final ClassLoader classLoader;
+        private final CamelContext camelctx;
+
+        ActivatedContext(ClassLoader classLoader, CamelContext camelctx) {
+            this.classLoader = classLoader;
+            this.camelctx = camelctx;
+        }
+
+        void start() {
+            ClassLoader tccl = SecurityActions.getContextClassLoader();
+            try {
+                SecurityActions.setContextClassLoader(classLoader);
+                ProxyUtils.invokeProxied(new ProxiedAction() {
+                    @Override
+                    public void run() throws Exception {
+                        camelctx.start();
+                    }
+                }, classLoader);
+            } catch (Exception ex) {
+                throw new CompletionException(new StartException("Cannot start camel context: " + camelctx.getName(), ex));
+            } finally {
+                SecurityActions.setContextClassLoader(tccl);
+            }
+        }
+
+        void close() {
+            ClassLoader tccl = SecurityActions.getContextClassLoader();
+            try {
+                SecurityActions.setContextClassLoader(classLoader);
+                camelctx.close();
+            } catch (Exception ex) {
+                LOGGER.warn("Cannot stop camel context: " + camelctx.getName(), ex);
+            } finally {
+                SecurityActions.setContextClassLoader(tccl);
+            }
+        }
     }
 }
@@ -22,21 +22,44 @@ package org.wildfly.extension.camel.service;
 
 import static org.wildfly.extension.camel.CamelLogger.LOGGER;
 
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.apache.camel.CamelContext;
+import org.apache.camel.ExtendedCamelContext;
 import org.apache.camel.impl.event.CamelContextStartingEvent;
 import org.apache.camel.impl.event.CamelContextStartupFailureEvent;
 import org.apache.camel.impl.event.CamelContextStoppedEvent;
+import org.apache.camel.model.ModelCamelContext;
+import org.apache.camel.model.RouteDefinition;
+import org.apache.camel.model.RoutesDefinition;
 import org.apache.camel.spi.CamelContextTracker;
 import org.apache.camel.spi.CamelEvent;
 import org.apache.camel.spi.ManagementStrategy;
 import org.apache.camel.support.EventNotifierSupport;
+import org.jboss.as.server.Services;
 import org.jboss.modules.ModuleClassLoader;
 import org.jboss.modules.ModuleIdentifier;
 import org.jboss.msc.service.AbstractService;
@@ -47,6 +70,7 @@ import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
 import org.jboss.msc.service.StopContext;
 import org.jboss.msc.value.InjectedValue;
+import org.wildfly.camel.utils.IllegalArgumentAssertion;
 import org.wildfly.camel.utils.IllegalStateAssertion;
 import org.wildfly.extension.camel.SpringCamelContextFactory;
 import org.wildfly.extension.camel.CamelConstants;
@@ -54,10 +78,16 @@ import org.wildfly.extension.camel.CamelContextRegistry;
 import org.wildfly.extension.camel.CamelSubsytemExtension;
 import org.wildfly.extension.camel.ContextCreateHandler;
 import org.wildfly.extension.camel.ContextCreateHandlerRegistry;
+import org.wildfly.extension.camel.WildFlyCamelContext;
 import org.wildfly.extension.camel.deployment.CamelDeploymentSettings;
 import org.wildfly.extension.camel.handler.ModuleClassLoaderAssociationHandler;
 import org.wildfly.extension.camel.parser.SubsystemState;
 import org.wildfly.extension.camel.service.CamelContextRegistryService.MutableCamelContextRegistry;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
 
 /**
  * The {@link CamelContextRegistry} service
@@ -73,8 +103,12 @@ public class CamelContextRegistryService extends AbstractService<MutableCamelCon
             + "http://www.springframework.org/schema/context http://www.springframework.org/schema/context/spring-context.xsd "
             + "http://camel.apache.org/schema/spring http://camel.apache.org/schema/spring/camel-spring.xsd'>";
 
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+    private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY = DocumentBuilderFactory.newInstance();
+
     private final SubsystemState subsystemState;
     private final InjectedValue<ContextCreateHandlerRegistry> injectedHandlerRegistry = new InjectedValue<>();
+    private final InjectedValue<ExecutorService> injectedExecutor = new InjectedValue<>();
 
     private MutableCamelContextRegistry contextRegistry;
 
@@ -82,6 +116,7 @@ public class CamelContextRegistryService extends AbstractService<MutableCamelCon
         CamelContextRegistryService service = new CamelContextRegistryService(subsystemState);
         ServiceBuilder<MutableCamelContextRegistry> builder = serviceTarget.addService(CamelConstants.CAMEL_CONTEXT_REGISTRY_SERVICE_NAME, service);
         builder.addDependency(CamelConstants.CONTEXT_CREATE_HANDLER_REGISTRY_SERVICE_NAME, ContextCreateHandlerRegistry.class, service.injectedHandlerRegistry);
+        Services.addServerExecutorDependency(builder, service.injectedExecutor);
         return builder.install();
     }
 
@@ -90,6 +125,26 @@ public class CamelContextRegistryService extends AbstractService<MutableCamelCon
         void addCamelContext(CamelContext camelctx);
 
         void removeCamelContext(CamelContext camelctx);
+
+        /** Add a listener that is notified when camel contexts are added to or removed from the registry */
+        void addListener(Listener listener);
+
+        /** Remove a previously added listener */
+        void removeListener(Listener listener);
+
+        /**
+         * A listener for {@link CamelContext} registration events.
+         *
+         * Listeners are called on the thread that starts or stops the context and must not block.
+         */
+        interface Listener {
+
+            /** Called after the given context was added to the registry */
+            void camelContextAdded(CamelContext camelctx);
+
+            /** Called after the given context was removed from the registry */
+            void camelContextRemoved(CamelContext camelctx);
+        }
     }
 
     // Hide ctor
@@ -103,9 +158,29 @@ public class CamelContextRegistryService extends AbstractService<MutableCamelCon
         contextRegistry = new CamelContextRegistryImpl(handlerRegistry, startContext.getChildTarget());
         ((CamelContextTracker) contextRegistry).open();
 
-        for (final String name : subsystemState.getContextDefinitionNames()) {
-            createCamelContext(name, subsystemState.getContextDefinition(name));
+        // Create and start the subsystem contexts concurrently
+        final List<String> names = new ArrayList<>(subsystemState.getContextDefinitionNames());
+        if (names.isEmpty()) {
+            return;
         }
+        final ExecutorService executor = injectedExecutor.getValue();
+        final List<CamelContext> started = new CopyOnWriteArrayList<>();
+        final List<CompletableFuture<Void>> starts = new ArrayList<>();
+        for (final String name : names) {
+            final String contextDefinition = subsystemState.getContextDefinition(name);
+            starts.add(CompletableFuture.runAsync(() -> started.addAll(startCamelContexts(name, contextDefinition)), executor));
+        }
+        startContext.asynchronous();
+        CompletableFuture.allOf(starts.toArray(new CompletableFuture[starts.size()])).whenComplete((nil, ex) -> {
+            if (ex == null) {
+                startContext.complete();
+            } else {
+                // Do not leave the contexts that did start running, nor the tracker open
+                closeCamelContexts(started);
+                ((CamelContextTracker) contextRegistry).close();
+                startContext.failed(new StartException(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex));
+            }
+        });
     }
 
     @Override
@@ -132,19 +207,218 @@ public class CamelContextRegistryService extends AbstractService<MutableCamelCon
     }
 
     public void createCamelContext(String name, String contextDefinition) {
+        startCamelContexts(name, contextDefinition);
+    }
+
+    /**
+     * @return the started contexts of the given definition; none of them is left running if one fails to start
+     */
+    private List<CamelContext> startCamelContexts(String name, String contextDefinition) {
+        List<CamelContext> result = new ArrayList<>();
         ClassLoader classLoader = CamelContextRegistry.class.getClassLoader();
         ClassLoader tccl = SecurityActions.getContextClassLoader();
         try {
             SecurityActions.setContextClassLoader(classLoader);
-            String beansXML = getBeansXML(name, contextDefinition);
-            for (CamelContext camelctx : SpringCamelContextFactory.createCamelContextList(beansXML.getBytes(), classLoader)) {
+            if (isRoutesOnly(contextDefinition)) {
+                // No need for a Spring application context
+                WildFlyCamelContext camelctx = new WildFlyCamelContext();
+                camelctx.setName(name);
+                camelctx.addRouteDefinitions(loadRouteDefinitions(camelctx, contextDefinition));
+                result.add(camelctx);
                 camelctx.start();
+            } else {
+                String beansXML = getBeansXML(name, contextDefinition);
+                for (CamelContext camelctx : SpringCamelContextFactory.createCamelContextList(beansXML.getBytes(), classLoader)) {
+                    result.add(camelctx);
+                    camelctx.start();
+                }
             }
         } catch (Exception ex) {
+            closeCamelContexts(result);
             throw new IllegalStateException("Cannot create camel context: " + name, ex);
         } finally {
             SecurityActions.setContextClassLoader(tccl);
         }
+        return result;
+    }
+
+    private void closeCamelContexts(List<CamelContext> camelctxs) {
+        List<CamelContext> reversed = new ArrayList<>(camelctxs);
+        Collections.reverse(reversed);
+        for (CamelContext camelctx : reversed) {
+            try {
+                camelctx.close();
+            } catch (Exception ex) {
+                LOGGER.warn("Cannot stop camel context: " + camelctx.getName(), ex);
+            }
+            contextRegistry.removeCamelContext(camelctx);
+        }
+    }
+
+    /**
+     * @return the current definition of the given subsystem context or null if there is none
+     */
+    public String getContextDefinition(String name) {
+        return subsystemState.getContextDefinition(name);
+    }
+
+    /**
+     * Applies a changed definition of a subsystem context to the running context. Only the routes that were added,
+     * removed or changed are stopped and started; the other routes keep running. The new definition is recorded only
+     * once it has been applied; if it cannot be applied, the context keeps running its former routes.
+     *
+     * @return true if the change cannot be applied to the running context and requires a reload
+     */
+    public boolean updateCamelContext(String name, String contextDefinition) {
+        String oldDefinition = subsystemState.getContextDefinition(name);
+        CamelContext camelctx = contextRegistry != null ? contextRegistry.getCamelContext(name) : null;
+        boolean reload = true;
+        if (camelctx != null && oldDefinition != null) {
+            ClassLoader tccl = SecurityActions.getContextClassLoader();
+            try {
+                SecurityActions.setContextClassLoader(CamelContextRegistry.class.getClassLoader());
+                reload = updateRoutes(camelctx, oldDefinition, contextDefinition);
+            } catch (Exception ex) {
+                throw new IllegalStateException("Cannot update camel context: " + name, ex);
+            } finally {
+                SecurityActions.setContextClassLoader(tccl);
+            }
+        }
+        subsystemState.putContextDefinition(name, contextDefinition);
+        return reload;
+    }
+
+    /**
+     * Records the given definition of a subsystem context without applying it to the running context.
+     */
+    public void restoreContextDefinition(String name, String contextDefinition) {
+        subsystemState.putContextDefinition(name, contextDefinition);
+    }
+
+    /**
+     * Replaces the routes that differ between the given definitions. The fresh routes are loaded before any route is
+     * touched; if they cannot be added, the routes added so far are removed and the stale routes are added back.
+     *
+     * @return true if the definitions cannot be compared route by route, in which case the context is left untouched
+     */
+    static boolean updateRoutes(CamelContext camelctx, String oldDefinition, String contextDefinition) throws Exception {
+        Map<String, Element> oldRoutes = getRouteElements(oldDefinition);
+        Map<String, Element> newRoutes = getRouteElements(contextDefinition);
+        if (oldRoutes == null || newRoutes == null) {
+            // Only contexts with identified routes can be updated route by route
+            return true;
+        }
+
+        Set<String> staleIds = new LinkedHashSet<>();
+        Set<String> freshIds = new LinkedHashSet<>();
+        for (Map.Entry<String, Element> entry : oldRoutes.entrySet()) {
+            Element newRoute = newRoutes.get(entry.getKey());
+            if (newRoute == null || !newRoute.isEqualNode(entry.getValue())) {
+                staleIds.add(entry.getKey());
+            }
+        }
+        for (Map.Entry<String, Element> entry : newRoutes.entrySet()) {
+            Element oldRoute = oldRoutes.get(entry.getKey());
+            if (oldRoute == null || !oldRoute.isEqualNode(entry.getValue())) {
+                freshIds.add(entry.getKey());
+            }
+        }
+        if (staleIds.isEmpty() && freshIds.isEmpty()) {
+            return false;
+        }
+
+        ModelCamelContext modelContext = camelctx.adapt(ModelCamelContext.class);
+        List<RouteDefinition> freshRoutes = loadRouteDefinitions(camelctx, contextDefinition).stream()
+                .filter(route -> freshIds.contains(route.getId()))
+                .collect(Collectors.toList());
+        List<RouteDefinition> staleRoutes = new ArrayList<>();
+        for (String routeId : staleIds) {
+            RouteDefinition routeDefinition = modelContext.getRouteDefinition(routeId);
+            if (routeDefinition != null) {
+                staleRoutes.add(routeDefinition);
+            }
+        }
+        LOGGER.info("Updating camel context {}: stopping routes {}, starting routes {}", camelctx.getName(), staleIds, freshIds);
+        try {
+            modelContext.removeRouteDefinitions(staleRoutes);
+            modelContext.addRouteDefinitions(freshRoutes);
+        } catch (Exception ex) {
+            // Restore the routes the context was running before
+            try {
+                modelContext.removeRouteDefinitions(freshRoutes);
+                modelContext.addRouteDefinitions(staleRoutes);
+            } catch (Exception rollbackEx) {
+                ex.addSuppressed(rollbackEx);
+            }
+            throw ex;
+        }
+        return false;
+    }
+
+    static List<RouteDefinition> loadRouteDefinitions(CamelContext camelctx, String contextDefinition) throws Exception {
+        String routesXML = getRoutesXML(contextDefinition);
+        ExtendedCamelContext extendedContext = camelctx.adapt(ExtendedCamelContext.class);
+        Object routes = extendedContext.getXMLRoutesDefinitionLoader().loadRoutesDefinition(camelctx, new ByteArrayInputStream(routesXML.getBytes(StandardCharsets.UTF_8)));
+        return routes instanceof RoutesDefinition ? ((RoutesDefinition) routes).getRoutes() : Collections.emptyList();
+    }
+
+    /**
+     * @return the route elements of the given context definition by route id or null if the definition contains other
+     *         elements or routes without a unique id
+     */
+    private static Map<String, Element> getRouteElements(String contextDefinition) {
+        Document document;
+        try {
+            DocumentBuilder builder = DOCUMENT_BUILDER_FACTORY.newDocumentBuilder();
+            document = builder.parse(new InputSource(new StringReader("<routes>" + contextDefinition + "</routes>")));
+        } catch (Exception ex) {
+            return null;
+        }
+        Map<String, Element> result = new LinkedHashMap<>();
+        NodeList children = document.getDocumentElement().getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            Node child = children.item(i);
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                Element route = (Element) child;
+                String routeId = route.getAttribute("id");
+                if (!"route".equals(route.getNodeName()) || routeId.isEmpty() || result.put(routeId, route) != null) {
+                    return null;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return true if the given context definition consists of route elements only
+     */
+    static boolean isRoutesOnly(String contextDefinition) {
+        try {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(new StringReader("<routes>" + contextDefinition + "</routes>"));
+            try {
+                int depth = 0;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        if (++depth == 2 && !"route".equals(reader.getLocalName())) {
+                            return false;
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        depth--;
+                    }
+                }
+                return true;
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException ex) {
+            return false;
+        }
+    }
+
+    private static String getRoutesXML(String contextDefinition) {
+        String hashReplaced = contextDefinition.replace("#{", "${");
+        return "<routes xmlns='http://camel.apache.org/schema/spring'>" + hashReplaced + "</routes>";
     }
 
     private String getBeansXML(String name, String contextDefinition) {
@@ -154,7 +428,9 @@ public class CamelContextRegistryService extends AbstractService<MutableCamelCon
 
     final class CamelContextRegistryImpl extends CamelContextTracker implements MutableCamelContextRegistry {
 
-        private final Set<CamelContext> contexts = new LinkedHashSet<>();
+        private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+        // Replaced under the registry lock on every change, so that reads never take a lock
+        private volatile RegistrySnapshot snapshot = RegistrySnapshot.EMPTY;
         private final ContextCreateHandlerRegistry handlerRegistry;
         private final ServiceTarget serviceTarget;
 
@@ -165,31 +441,33 @@ public class CamelContextRegistryService extends AbstractService<MutableCamelCon
 
         @Override
         public List<String> getCamelContextNames() {
-            List<String> result = contexts.stream()
-                    .map(ctx -> ctx.getName())
-                    .collect(Collectors.toList());
-            return result;
+            return snapshot.names;
         }
 
         @Override
         public CamelContext getCamelContext(String name) {
-            CamelContext result = null;
-            synchronized (contexts) {
-                for (CamelContext camelctx : contexts) {
-                    if (camelctx.getName().equals(name)) {
-                        result = camelctx;
-                        break;
-                    }
-                }
-            }
-            return result;
+            return snapshot.contextsByName.get(name);
         }
 
         @Override
         public Set<CamelContext> getCamelContexts() {
-            synchronized (contexts) {
-                return Collections.unmodifiableSet(contexts);
-            }
+            return snapshot.contexts;
+        }
+
+        @Override
+        public Set<CamelContext> getCamelContexts(ClassLoader classLoader) {
+            return snapshot.contextsByClassLoader.getOrDefault(classLoader, Collections.emptySet());
+        }
+
+        @Override
+        public void addListener(Listener listener) {
+            IllegalArgumentAssertion.assertNotNull(listener, "listener");
+            listeners.add(listener);
+        }
+
+        @Override
+        public void removeListener(Listener listener) {
+            listeners.remove(listener);
         }
 
         @Override
@@ -258,8 +536,11 @@ public class CamelContextRegistryService extends AbstractService<MutableCamelCon
 
         @Override
         public void addCamelContext(CamelContext camelctx) {
-            synchronized (contexts) {
-                contexts.add(camelctx);
+            synchronized (this) {
+                if (snapshot.contexts.contains(camelctx)) {
+                    return;
+                }
+                snapshot = snapshot.with(camelctx);
                 subsystemState.processExtensions(new Consumer<CamelSubsytemExtension>() {
                     @Override
                     public void accept(CamelSubsytemExtension plugin) {
@@ -267,19 +548,82 @@ public class CamelContextRegistryService extends AbstractService<MutableCamelCon
                     }
                 });
             }
+            for (Listener listener : listeners) {
+                try {
+                    listener.camelContextAdded(camelctx);
+                } catch (RuntimeException ex) {
+                    LOGGER.warn("Cannot notify listener: " + listener, ex);
+                }
+            }
         }
 
         @Override
         public void removeCamelContext(CamelContext camelctx) {
-            synchronized (contexts) {
+            synchronized (this) {
+                if (!snapshot.contexts.contains(camelctx)) {
+                    return;
+                }
                 subsystemState.processExtensions(new Consumer<CamelSubsytemExtension>() {
                     @Override
                     public void accept(CamelSubsytemExtension plugin) {
                         plugin.removeCamelContext(camelctx);
                     }
                 });
-                contexts.remove(camelctx);
+                snapshot = snapshot.without(camelctx);
             }
+            for (Listener listener : listeners) {
+                try {
+                    listener.camelContextRemoved(camelctx);
+                } catch (RuntimeException ex) {
+                    LOGGER.warn("Cannot notify listener: " + listener, ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * An immutable view of the registered contexts, indexed by name and by application class loader.
+     *
+     * If several contexts share a name, the one registered first is found by name.
+     */
+    static final class RegistrySnapshot {
+
+        static final RegistrySnapshot EMPTY = new RegistrySnapshot(new LinkedHashSet<>());
+
+        final Set<CamelContext> contexts;
+        final List<String> names;
+        final Map<String, CamelContext> contextsByName;
+        final Map<ClassLoader, Set<CamelContext>> contextsByClassLoader;
+
+        private RegistrySnapshot(LinkedHashSet<CamelContext> contexts) {
+            List<String> names = new ArrayList<>(contexts.size());
+            Map<String, CamelContext> contextsByName = new HashMap<>();
+            Map<ClassLoader, Set<CamelContext>> contextsByClassLoader = new HashMap<>();
+            for (CamelContext camelctx : contexts) {
+                names.add(camelctx.getName());
+                contextsByName.putIfAbsent(camelctx.getName(), camelctx);
+                ClassLoader classLoader = camelctx.getApplicationContextClassLoader();
+                if (classLoader != null) {
+                    contextsByClassLoader.computeIfAbsent(classLoader, k -> new LinkedHashSet<>()).add(camelctx);
+                }
+            }
+            contextsByClassLoader.replaceAll((k, v) -> Collections.unmodifiableSet(v));
+            this.contexts = Collections.unmodifiableSet(contexts);
+            this.names = Collections.unmodifiableList(names);
+            this.contextsByName = contextsByName;
+            this.contextsByClassLoader = contextsByClassLoader;
+        }
+
+        RegistrySnapshot with(CamelContext camelctx) {
+            LinkedHashSet<CamelContext> result = new LinkedHashSet<>(contexts);
+            result.add(camelctx);
+            return new RegistrySnapshot(result);
+        }
+
+        RegistrySnapshot without(CamelContext camelctx) {
+            LinkedHashSet<CamelContext> result = new LinkedHashSet<>(contexts);
+            result.remove(camelctx);
+            return new RegistrySnapshot(result);
         }
     }
 }
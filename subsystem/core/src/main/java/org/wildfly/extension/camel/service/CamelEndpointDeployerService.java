@@ -23,10 +23,12 @@ import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
@@ -50,6 +52,8 @@ import org.jboss.msc.service.StartException;
 import org.jboss.msc.service.StopContext;
 import org.jboss.msc.value.InjectedValue;
 import org.wildfly.extension.camel.CamelLogger;
+import org.wildfly.extension.camel.deployment.CamelDeploymentSettings;
+import org.wildfly.extension.camel.deployment.CamelDeploymentSettings.HttpEndpointLimit;
 import org.wildfly.extension.undertow.Host;
 import org.wildfly.extension.undertow.ServletContainerService;
 import org.wildfly.extension.undertow.UndertowService;
@@ -57,6 +61,7 @@ import org.wildfly.extension.undertow.UndertowService;
 import io.undertow.server.HandlerWrapper;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.ResponseCodeHandler;
 import io.undertow.servlet.Servlets;
 import io.undertow.servlet.api.Deployment;
 import io.undertow.servlet.api.DeploymentInfo;
@@ -68,6 +73,9 @@ import io.undertow.servlet.api.TransportGuaranteeType;
 import io.undertow.servlet.api.WebResourceCollection;
 import io.undertow.servlet.core.DeploymentImpl;
 import io.undertow.servlet.core.ManagedServlet;
+import io.undertow.servlet.handlers.ServletRequestContext;
+import io.undertow.util.AttachmentKey;
+import io.undertow.util.URLUtils;
 
 /**
  * A service responsible for exposing and unexposing CXF endpoints via {@link #deploy(URI, EndpointHttpHandler)} and
@@ -81,6 +89,12 @@ public class CamelEndpointDeployerService implements Service<CamelEndpointDeploy
 
     private static final String MATCH_ALL_PREFIX = "/*";
 
+    /** The deployment name suffix of the shared endpoint deployment */
+    private static final String SHARED_DEPLOYMENT_SUFFIX = "camel-endpoints";
+
+    /** Passes the endpoint and its context-relative paths from {@link SharedEndpointRouter} to {@link EndpointServlet} */
+    private static final AttachmentKey<SharedEndpointRequest> SHARED_ENDPOINT_REQUEST_KEY = AttachmentKey.create(SharedEndpointRequest.class);
+
     /** The name for the {@link CamelEndpointDeployerService} */
     private static final String SERVICE_NAME = "EndpointDeployer";
 
@@ -105,8 +119,19 @@ public class CamelEndpointDeployerService implements Service<CamelEndpointDeploy
 
     public static ServiceController<CamelEndpointDeployerService> addService(DeploymentUnit deploymentUnit,
             ServiceTarget serviceTarget, ServiceName deploymentInfoServiceName, ServiceName hostServiceName) {
+        return addService(deploymentUnit, serviceTarget, deploymentInfoServiceName, hostServiceName, new CamelEndpointDeployerService());
+    }
+
+    public static ServiceController<CamelEndpointDeployerService> addService(DeploymentUnit deploymentUnit,
+            ServiceTarget serviceTarget, ServiceName deploymentInfoServiceName, ServiceName hostServiceName,
+            CamelDeploymentSettings depSettings) {
+        CamelEndpointDeployerService service = new CamelEndpointDeployerService(depSettings);
+        return addService(deploymentUnit, serviceTarget, deploymentInfoServiceName, hostServiceName, service);
+    }
 
-        CamelEndpointDeployerService service = new CamelEndpointDeployerService();
+    private static ServiceController<CamelEndpointDeployerService> addService(DeploymentUnit deploymentUnit,
+            ServiceTarget serviceTarget, ServiceName deploymentInfoServiceName, ServiceName hostServiceName,
+            CamelEndpointDeployerService service) {
         ServiceBuilder<CamelEndpointDeployerService> sb = serviceTarget.addService(deployerServiceName(deploymentUnit.getServiceName()), service);
         sb.addDependency(hostServiceName, Host.class, service.hostSupplier);
         sb.addDependency(deploymentInfoServiceName, DeploymentInfo.class, service.deploymentInfoSupplier);
@@ -126,47 +151,40 @@ public class CamelEndpointDeployerService implements Service<CamelEndpointDeploy
         return depUnitServiceName.append(SERVICE_NAME);
     }
 
-    private static List<SecurityConstraint> filterConstraints(DeploymentInfo mainDeploymentInfo, URI uri) {
+    private static List<SecurityConstraint> filterConstraints(CompiledConstraints compiledConstraints, URI uri) {
         final List<SecurityConstraint> result = new ArrayList<>();
         final String uriPath = uri.getPath();
-        final String endpointUriPrefix = "//" + uriPath;
-        final String mainContextPath = mainDeploymentInfo.getContextPath();
+        final String mainContextPath = compiledConstraints.mainContextPath;
         final boolean isRelativeUri = uriPath.startsWith(mainContextPath);
-        final String relativeUriPath = isRelativeUri ? uriPath.substring(mainContextPath.length()) : null;
-        for (SecurityConstraint mainSecurityConstraint : mainDeploymentInfo.getSecurityConstraints()) {
-            final SecurityConstraint endpointSecurityConstraint = new SecurityConstraint();
-            for (WebResourceCollection mainResourceCollection : mainSecurityConstraint.getWebResourceCollections()) {
-                final WebResourceCollection endpointResourceCollection = new WebResourceCollection();
-                for (String mainUrlPattern : mainResourceCollection.getUrlPatterns()) {
-                    if (MATCH_ALL_ENDPOINT_URI_PREFIX.equals(mainUrlPattern)) {
-                        endpointResourceCollection.addUrlPattern(MATCH_ALL_PREFIX);
-                    } else {
-                        final UrlPattern pattern = new UrlPattern(mainUrlPattern);
-                        String relativePattern = null;
-                        if (isRelativeUri) {
-                            if ((relativePattern = pattern.relativize(relativeUriPath)) != null) {
-                                endpointResourceCollection.addUrlPattern(relativePattern);
-                            }
-                        } else if ((relativePattern = pattern.relativize(endpointUriPrefix)) != null) {
-                            endpointResourceCollection.addUrlPattern(relativePattern);
-                        }
-                    }
-                }
-                if (!endpointResourceCollection.getUrlPatterns().isEmpty()) {
-                    endpointResourceCollection.addHttpMethods(mainResourceCollection.getHttpMethods());
-                    endpointResourceCollection.addHttpMethodOmissions(mainResourceCollection.getHttpMethodOmissions());
-                    endpointSecurityConstraint.addWebResourceCollection(endpointResourceCollection);
-                }
+        final String[] pathTokens = UrlPattern.tokenize(isRelativeUri ? uriPath.substring(mainContextPath.length()) : "//" + uriPath);
+
+        /* only the patterns that may match the path are visited, in the order of the main deployment */
+        final Map<CompiledConstraint, Map<CompiledResourceCollection, WebResourceCollection>> matches = new LinkedHashMap<>();
+        for (IndexedPattern candidate : compiledConstraints.candidates(pathTokens)) {
+            final String relativePattern = candidate.pattern.isMatchAllEndpoints() ? MATCH_ALL_PREFIX : candidate.pattern.relativize(pathTokens);
+            if (relativePattern != null) {
+                matches.computeIfAbsent(candidate.constraint, k -> new LinkedHashMap<>())
+                        .computeIfAbsent(candidate.resourceCollection, k -> new WebResourceCollection())
+                        .addUrlPattern(relativePattern);
             }
+        }
 
-            if (!endpointSecurityConstraint.getWebResourceCollections().isEmpty()) {
-                endpointSecurityConstraint.addRolesAllowed(mainSecurityConstraint.getRolesAllowed());
-                endpointSecurityConstraint.setEmptyRoleSemantic(mainSecurityConstraint.getEmptyRoleSemantic());
-                endpointSecurityConstraint.setTransportGuaranteeType(
-                        transportGuaranteeType(uri, mainSecurityConstraint.getTransportGuaranteeType()));
-                result.add(endpointSecurityConstraint);
+        for (Map.Entry<CompiledConstraint, Map<CompiledResourceCollection, WebResourceCollection>> match : matches.entrySet()) {
+            final SecurityConstraint endpointSecurityConstraint = new SecurityConstraint();
+            for (Map.Entry<CompiledResourceCollection, WebResourceCollection> collectionMatch : match.getValue().entrySet()) {
+                final WebResourceCollection mainResourceCollection = collectionMatch.getKey().source;
+                final WebResourceCollection endpointResourceCollection = collectionMatch.getValue();
+                endpointResourceCollection.addHttpMethods(mainResourceCollection.getHttpMethods());
+                endpointResourceCollection.addHttpMethodOmissions(mainResourceCollection.getHttpMethodOmissions());
+                endpointSecurityConstraint.addWebResourceCollection(endpointResourceCollection);
             }
 
+            final SecurityConstraint source = match.getKey().source;
+            endpointSecurityConstraint.addRolesAllowed(source.getRolesAllowed());
+            endpointSecurityConstraint.setEmptyRoleSemantic(source.getEmptyRoleSemantic());
+            endpointSecurityConstraint.setTransportGuaranteeType(
+                    transportGuaranteeType(uri, source.getTransportGuaranteeType()));
+            result.add(endpointSecurityConstraint);
         }
         if (result.isEmpty() && uri.getScheme().equals("https")) {
             final WebResourceCollection webResourceCollection = new WebResourceCollection();
@@ -182,6 +200,47 @@ public class CamelEndpointDeployerService implements Service<CamelEndpointDeploy
         return result;
     }
 
+    /**
+     * Translates the security constraints of the main deployment into constraints with absolute URL patterns, as
+     * needed by the shared endpoint deployment that sees the full request path as its relative path. Patterns
+     * starting with {@code //} address endpoint URIs and lose that prefix; other path patterns are relative to the
+     * main context path and get it prepended.
+     */
+    private static List<SecurityConstraint> absoluteConstraints(DeploymentInfo mainDeploymentInfo) {
+        final List<SecurityConstraint> result = new ArrayList<>();
+        String mainContextPath = mainDeploymentInfo.getContextPath();
+        if (mainContextPath.endsWith("/")) {
+            mainContextPath = mainContextPath.substring(0, mainContextPath.length() - 1);
+        }
+        for (SecurityConstraint mainSecurityConstraint : mainDeploymentInfo.getSecurityConstraints()) {
+            final SecurityConstraint endpointSecurityConstraint = new SecurityConstraint();
+            for (WebResourceCollection mainResourceCollection : mainSecurityConstraint.getWebResourceCollections()) {
+                final WebResourceCollection endpointResourceCollection = new WebResourceCollection();
+                for (String mainUrlPattern : mainResourceCollection.getUrlPatterns()) {
+                    if (MATCH_ALL_ENDPOINT_URI_PREFIX.equals(mainUrlPattern)) {
+                        endpointResourceCollection.addUrlPattern(MATCH_ALL_PREFIX);
+                    } else if (mainUrlPattern.startsWith("//")) {
+                        endpointResourceCollection.addUrlPattern(mainUrlPattern.substring(2));
+                    } else if (mainUrlPattern.startsWith("/")) {
+                        endpointResourceCollection.addUrlPattern(mainContextPath + mainUrlPattern);
+                    } else {
+                        endpointResourceCollection.addUrlPattern(mainUrlPattern);
+                    }
+                }
+                endpointResourceCollection.addHttpMethods(mainResourceCollection.getHttpMethods());
+                endpointResourceCollection.addHttpMethodOmissions(mainResourceCollection.getHttpMethodOmissions());
+                endpointSecurityConstraint.addWebResourceCollection(endpointResourceCollection);
+            }
+            endpointSecurityConstraint.addRolesAllowed(mainSecurityConstraint.getRolesAllowed());
+            endpointSecurityConstraint.setEmptyRoleSemantic(mainSecurityConstraint.getEmptyRoleSemantic());
+            final TransportGuaranteeType transportGuaranteeType = mainSecurityConstraint.getTransportGuaranteeType();
+            endpointSecurityConstraint.setTransportGuaranteeType(
+                    transportGuaranteeType != null ? transportGuaranteeType : TransportGuaranteeType.NONE);
+            result.add(endpointSecurityConstraint);
+        }
+        return result;
+    }
+
     private static TransportGuaranteeType transportGuaranteeType(URI uri,
             final TransportGuaranteeType transportGuaranteeType) {
         if (uri.getScheme().equals("https")) {
@@ -197,11 +256,36 @@ public class CamelEndpointDeployerService implements Service<CamelEndpointDeploy
 
     private final Map<URI, DeploymentManager> deployments = new HashMap<>();
 
+    /** {@link HttpHandler}s registered directly with the {@link Host}, bypassing the servlet layer */
+    private final Map<URI, DirectEndpointHttpHandler> directHandlers = new HashMap<>();
+
+    /** The single servlet deployment serving all endpoints if {@link #sharedEndpointDeployment} is set */
+    private DeploymentManager sharedDeploymentManager;
+
+    /** Routes the requests to the endpoints served by {@link #sharedDeploymentManager} */
+    private SharedEndpointRouter sharedEndpointRouter;
+
+    /** The security constraints of the main deployment, see {@link #compiledConstraints()} */
+    private volatile CompiledConstraints compiledConstraints;
+
+    private final CamelDeploymentSettings depSettings;
+
+    private final boolean directHttpHandlers;
+
+    private final boolean sharedEndpointDeployment;
+
     private final InjectedValue<Host> hostSupplier = new InjectedValue<>();
 
     private final InjectedValue<ServletContainerService> servletContainerServiceSupplier = new InjectedValue<>();
 
     public CamelEndpointDeployerService() {
+        this(null);
+    }
+
+    public CamelEndpointDeployerService(CamelDeploymentSettings depSettings) {
+        this.depSettings = depSettings;
+        this.directHttpHandlers = depSettings != null && depSettings.isDirectHttpHandlers();
+        this.sharedEndpointDeployment = depSettings != null && depSettings.isSharedEndpointDeployment();
     }
 
     @Override
@@ -217,6 +301,10 @@ public class CamelEndpointDeployerService implements Service<CamelEndpointDeploy
      *        {@link URI}'s path
      */
     public void deploy(URI uri, EndpointHttpHandler endpointHttpHandler) {
+        if (isShared(uri)) {
+            doDeployShared(uri, endpointHttpHandler, null);
+            return;
+        }
         doDeploy(
                 uri,
                 servletInstance -> servletInstance.setEndpointHttpHandler(endpointHttpHandler), // plug the endpointHttpHandler into the servlet
@@ -233,6 +321,25 @@ public class CamelEndpointDeployerService implements Service<CamelEndpointDeploy
      *        {@link URI}'s path
      */
     public void deploy(URI uri, final HttpHandler routingHandler) {
+        synchronized (directHandlers) {
+            if (directHandlers.values().stream().anyMatch(handler -> handler.getRoutingHandler() == routingHandler)) {
+                /* the routing handler is registered with the host already */
+                return;
+            }
+        }
+        if (directHttpHandlers && doDeployDirect(uri, routingHandler)) {
+            return;
+        }
+        if (isShared(uri)) {
+            synchronized (deployments) {
+                if (sharedEndpointRouter != null && sharedEndpointRouter.serves(routingHandler)) {
+                    /* the routing handler is served by the shared deployment already */
+                    return;
+                }
+            }
+            doDeployShared(uri, new DelegatingEndpointHttpHandler(routingHandler), routingHandler);
+            return;
+        }
         final Set<Deployment> availableDeployments = hostSupplier.getValue().getDeployments();
         if (!availableDeployments.stream().anyMatch(
                         deployment -> deployment.getHandler() instanceof CamelEndpointDeployerHandler
@@ -249,6 +356,116 @@ public class CamelEndpointDeployerService implements Service<CamelEndpointDeploy
         }
     }
 
+    /**
+     * Registers the given {@link HttpHandler} directly with the {@link Host} so that neither the servlet request and
+     * response wrappers nor {@link #exchangeThreadLocal} nor the servlet filter chain are involved in serving the
+     * requests. This is only possible if no security constraint of the main deployment applies to the given
+     * {@link URI}, because those can only be enforced by the servlet security handlers.
+     *
+     * @return {@code true} if the handler was registered; {@code false} if a servlet deployment is needed instead
+     */
+    private boolean doDeployDirect(URI uri, HttpHandler routingHandler) {
+        final DeploymentInfo mainDeploymentInfo = deploymentInfoSupplier.getValue();
+        if (!filterConstraints(compiledConstraints(), uri).isEmpty()) {
+            CamelLogger.LOGGER.debug("Security constraints apply to endpoint {}, falling back to a servlet deployment", uri);
+            return false;
+        }
+
+        final DirectEndpointHttpHandler handler = new DirectEndpointHttpHandler(routingHandler, mainDeploymentInfo.getClassLoader());
+        CamelLogger.LOGGER.debug("Registering direct handler for endpoint {}", uri);
+        synchronized (directHandlers) {
+            hostSupplier.getValue().registerHandler(uri.getPath(), limit(uri, handler));
+            directHandlers.put(uri, handler);
+        }
+        return true;
+    }
+
+    /**
+     * @return the security constraints of the main deployment, compiled on first use
+     */
+    private CompiledConstraints compiledConstraints() {
+        CompiledConstraints result = compiledConstraints;
+        if (result == null) {
+            result = new CompiledConstraints(deploymentInfoSupplier.getValue());
+            compiledConstraints = result;
+        }
+        return result;
+    }
+
+    /**
+     * @return the given handler wrapped in a {@link ConcurrencyLimitingHandler} if a {@link HttpEndpointLimit} is
+     *         configured for the given {@link URI}'s path; otherwise the given handler
+     */
+    private HttpHandler limit(URI uri, HttpHandler handler) {
+        final HttpEndpointLimit limit = depSettings != null ? depSettings.getHttpEndpointLimit(uri.getPath()) : null;
+        if (limit == null) {
+            return handler;
+        }
+        CamelLogger.LOGGER.debug("Limiting endpoint {} to {} concurrent requests", uri, limit.getMaxConcurrentRequests());
+        return new ConcurrencyLimitingHandler(handler, limit.getMaxConcurrentRequests(), limit.getQueueSize(), limit.getRetryAfter());
+    }
+
+    private boolean isShared(URI uri) {
+        /* https endpoints get a deployment of their own with CONFIDENTIAL transport guarantee */
+        return sharedEndpointDeployment && !"https".equals(uri.getScheme());
+    }
+
+    /**
+     * Adds the endpoint to the {@link SharedEndpointRouter} of the shared servlet deployment, creating that deployment
+     * on first use. The {@link Host} only dispatches by path prefix and any prefix shorter than the endpoint path
+     * could shadow the main deployment, so the router is mapped under the endpoint path, while the endpoint itself is
+     * selected within the shared deployment.
+     */
+    private void doDeployShared(URI uri, EndpointHttpHandler endpointHttpHandler, HttpHandler routingHandler) {
+        final String path = SharedEndpointRouter.endpointPath(uri);
+        CamelLogger.LOGGER.debug("Registering endpoint {} with the shared endpoint deployment", uri);
+        synchronized (deployments) {
+            if (sharedDeploymentManager == null) {
+                sharedDeploymentManager = deploySharedDeployment();
+                sharedEndpointRouter = new SharedEndpointRouter(sharedDeploymentManager.getDeployment().getHandler());
+            }
+            sharedEndpointRouter.add(path, endpointHttpHandler, routingHandler);
+            hostSupplier.getValue().registerHandler(path, limit(uri, sharedEndpointRouter));
+        }
+    }
+
+    /**
+     * Always call under {@link #deployments} lock.
+     */
+    private DeploymentManager deploySharedDeployment() {
+        final DeploymentInfo sharedDeploymentInfo = sharedDeploymentInfo(deploymentInfoSupplier.getValue());
+        CamelLogger.LOGGER.debug("Deploying shared endpoint deployment {}", sharedDeploymentInfo.getDeploymentName());
+
+        final ClassLoader old = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(sharedDeploymentInfo.getClassLoader());
+        try {
+            final DeploymentManager manager = servletContainerServiceSupplier.getValue().getServletContainer()
+                    .addDeployment(sharedDeploymentInfo);
+            manager.deploy();
+            try {
+                manager.start();
+            } catch (ServletException ex) {
+                throw new IllegalStateException(ex);
+            }
+            return manager;
+        } finally {
+            Thread.currentThread().setContextClassLoader(old);
+        }
+    }
+
+    static DeploymentInfo sharedDeploymentInfo(DeploymentInfo mainDeploymentInfo) {
+        final ServletInfo servletInfo = Servlets.servlet(EndpointServlet.NAME, EndpointServlet.class).addMapping("/*")
+                .setAsyncSupported(true);
+
+        final DeploymentInfo sharedDeploymentInfo = mainDeploymentInfo.clone()
+                .setContextPath("")
+                .setDeploymentName(mainDeploymentInfo.getDeploymentName() + ":" + SHARED_DEPLOYMENT_SUFFIX)
+                .addServlet(servletInfo)
+                .addInnerHandlerChainWrapper(exchangeStoringHandlerWrapper);
+        sharedDeploymentInfo.addSecurityConstraints(absoluteConstraints(mainDeploymentInfo));
+        return sharedDeploymentInfo;
+    }
+
     private void doDeploy(URI uri, Consumer<EndpointServlet> endpointServletConsumer, Consumer<DeploymentInfo> deploymentInfoConsumer, Consumer<DeploymentImpl> deploymentConsumer) {
 
         final ServletInfo servletInfo = Servlets.servlet(EndpointServlet.NAME, EndpointServlet.class).addMapping("/*")
@@ -270,7 +487,7 @@ public class CamelEndpointDeployerService implements Service<CamelEndpointDeploy
             try {
                 deploymentConsumer.accept((DeploymentImpl) deployment);
                 manager.start();
-                hostSupplier.getValue().registerDeployment(deployment, deployment.getHandler());
+                hostSupplier.getValue().registerDeployment(deployment, limit(uri, deployment.getHandler()));
 
                 ManagedServlet managedServlet = deployment.getServlets().getManagedServlet(EndpointServlet.NAME);
 
@@ -296,7 +513,7 @@ public class CamelEndpointDeployerService implements Service<CamelEndpointDeploy
                 .setDeploymentName(deploymentName)
                 .addServlet(servletInfo);
 
-        info.addSecurityConstraints(filterConstraints(src, uri));
+        info.addSecurityConstraints(filterConstraints(compiledConstraints(), uri));
 
         return info;
     }
@@ -307,7 +524,21 @@ public class CamelEndpointDeployerService implements Service<CamelEndpointDeploy
 
     @Override
     public void stop(StopContext context) {
+        synchronized (directHandlers) {
+            for (URI uri : directHandlers.keySet()) {
+                hostSupplier.getValue().unregisterHandler(uri.getPath());
+            }
+            directHandlers.clear();
+        }
         synchronized (deployments) {
+            if (sharedDeploymentManager != null) {
+                for (String path : sharedEndpointRouter.getPaths()) {
+                    hostSupplier.getValue().unregisterHandler(path);
+                }
+                sharedEndpointRouter = null;
+                undeploy(sharedDeploymentManager, false);
+                sharedDeploymentManager = null;
+            }
             for (DeploymentManager deploymentManager : deployments.values()) {
                 undeploy(deploymentManager);
             }
@@ -321,7 +552,20 @@ public class CamelEndpointDeployerService implements Service<CamelEndpointDeploy
      * @param uri the URI to unexpose
      */
     public void undeploy(URI uri) {
+        synchronized (directHandlers) {
+            if (directHandlers.remove(uri) != null) {
+                CamelLogger.LOGGER.debug("Unregistering direct handler for endpoint {}", uri);
+                hostSupplier.getValue().unregisterHandler(uri.getPath());
+                return;
+            }
+        }
         synchronized (deployments) {
+            final String path = SharedEndpointRouter.endpointPath(uri);
+            if (sharedEndpointRouter != null && sharedEndpointRouter.remove(path)) {
+                CamelLogger.LOGGER.debug("Unregistering endpoint {} from the shared endpoint deployment", uri);
+                hostSupplier.getValue().unregisterHandler(path);
+                return;
+            }
             DeploymentManager deploymentManager = deployments.remove(uri);
             if (deploymentManager != null) {
                 try {
@@ -335,6 +579,10 @@ public class CamelEndpointDeployerService implements Service<CamelEndpointDeploy
     }
 
     private void undeploy(DeploymentManager deploymentManager) {
+        undeploy(deploymentManager, true);
+    }
+
+    private void undeploy(DeploymentManager deploymentManager, boolean registeredWithHost) {
         final Deployment deployment = deploymentManager.getDeployment();
         CamelLogger.LOGGER.debug("Undeploying endpoint {}", deployment.getDeploymentInfo().getDeploymentName());
 
@@ -342,7 +590,9 @@ public class CamelEndpointDeployerService implements Service<CamelEndpointDeploy
         Thread.currentThread().setContextClassLoader(deployment.getDeploymentInfo().getClassLoader());
         try {
             try {
-                hostSupplier.getValue().unregisterDeployment(deployment);
+                if (registeredWithHost) {
+                    hostSupplier.getValue().unregisterDeployment(deployment);
+                }
                 deploymentManager.stop();
             } catch (ServletException e) {
                 throw new RuntimeException(e);
@@ -380,6 +630,122 @@ public class CamelEndpointDeployerService implements Service<CamelEndpointDeploy
 
     }
 
+    /**
+     * An {@link HttpHandler} registered directly with the {@link Host}. Like the servlet layer, it moves the request
+     * processing off the IO thread, starts blocking mode and sets the deployment's class loader as TCCL before
+     * delegating to the {@link #routingHandler}, unless the {@link #routingHandler} is a {@link DispatchingHttpHandler}
+     * that takes care of that by itself.
+     */
+    static class DirectEndpointHttpHandler implements HttpHandler {
+        private final HttpHandler routingHandler;
+        private final ClassLoader classLoader;
+
+        DirectEndpointHttpHandler(HttpHandler routingHandler, ClassLoader classLoader) {
+            this.routingHandler = routingHandler;
+            this.classLoader = classLoader;
+        }
+
+        HttpHandler getRoutingHandler() {
+            return routingHandler;
+        }
+
+        @Override
+        public void handleRequest(HttpServerExchange exchange) throws Exception {
+            if (routingHandler instanceof DispatchingHttpHandler) {
+                routingHandler.handleRequest(exchange);
+                return;
+            }
+            if (exchange.isInIoThread()) {
+                exchange.dispatch(this);
+                return;
+            }
+            exchange.startBlocking();
+            final ClassLoader old = Thread.currentThread().getContextClassLoader();
+            Thread.currentThread().setContextClassLoader(classLoader);
+            try {
+                routingHandler.handleRequest(exchange);
+            } finally {
+                Thread.currentThread().setContextClassLoader(old);
+            }
+        }
+    }
+
+    /**
+     * The {@link HttpHandler} registered with the {@link Host} under the path of each endpoint served by the shared
+     * endpoint deployment. The endpoint is looked up by the path resolved by the {@link Host}. The servlet layer sees
+     * the whole request path, so that the absolute security constraints of the shared deployment apply, while the
+     * context-relative paths are passed along to be restored before the endpoint is invoked.
+     */
+    static class SharedEndpointRouter implements HttpHandler {
+        private final HttpHandler deploymentHandler;
+        private final Map<String, SharedEndpoint> endpoints = new ConcurrentHashMap<>();
+
+        SharedEndpointRouter(HttpHandler deploymentHandler) {
+            this.deploymentHandler = deploymentHandler;
+        }
+
+        /**
+         * @return the given {@link URI}'s path the way the {@link Host} resolves it when matching a request
+         */
+        static String endpointPath(URI uri) {
+            final String path = URLUtils.normalizeSlashes(uri.getPath());
+            return "/".equals(path) ? "" : path;
+        }
+
+        void add(String path, EndpointHttpHandler endpointHttpHandler, HttpHandler routingHandler) {
+            endpoints.put(path, new SharedEndpoint(endpointHttpHandler, routingHandler));
+        }
+
+        boolean remove(String path) {
+            return endpoints.remove(path) != null;
+        }
+
+        boolean serves(HttpHandler routingHandler) {
+            return endpoints.values().stream().anyMatch(endpoint -> endpoint.routingHandler == routingHandler);
+        }
+
+        Set<String> getPaths() {
+            return endpoints.keySet();
+        }
+
+        @Override
+        public void handleRequest(HttpServerExchange exchange) throws Exception {
+            final String resolvedPath = exchange.getResolvedPath();
+            final SharedEndpoint endpoint = endpoints.get(resolvedPath);
+            if (endpoint == null) {
+                ResponseCodeHandler.HANDLE_404.handleRequest(exchange);
+                return;
+            }
+            exchange.putAttachment(SHARED_ENDPOINT_REQUEST_KEY,
+                    new SharedEndpointRequest(endpoint.endpointHttpHandler, exchange.getRelativePath(), resolvedPath));
+            exchange.setRelativePath(exchange.getRequestPath());
+            exchange.setResolvedPath("");
+            deploymentHandler.handleRequest(exchange);
+        }
+    }
+
+    static final class SharedEndpoint {
+        private final EndpointHttpHandler endpointHttpHandler;
+        private final HttpHandler routingHandler;
+
+        SharedEndpoint(EndpointHttpHandler endpointHttpHandler, HttpHandler routingHandler) {
+            this.endpointHttpHandler = endpointHttpHandler;
+            this.routingHandler = routingHandler;
+        }
+    }
+
+    static final class SharedEndpointRequest {
+        private final EndpointHttpHandler endpointHttpHandler;
+        private final String relativePath;
+        private final String resolvedPath;
+
+        SharedEndpointRequest(EndpointHttpHandler endpointHttpHandler, String relativePath, String resolvedPath) {
+            this.endpointHttpHandler = endpointHttpHandler;
+            this.relativePath = relativePath;
+            this.resolvedPath = resolvedPath;
+        }
+    }
+
     /**
      * A funny class: although called from within a {@link Servlet} it actually delegates to an {@link HttpHandler}
      * using the {@link HttpServerExchange} stored in {@link CamelEndpointDeployerService#exchangeThreadLocal}. Found no
@@ -407,6 +773,12 @@ public class CamelEndpointDeployerService implements Service<CamelEndpointDeploy
         public void service(ServletContext context, HttpServletRequest req, HttpServletResponse resp)
                 throws IOException {
             HttpServerExchange exchange = exchangeThreadLocal.get();
+            final SharedEndpointRequest sharedRequest = exchange.getAttachment(SHARED_ENDPOINT_REQUEST_KEY);
+            if (sharedRequest != null) {
+                /* the handler matches the paths stripped by the host, not the whole path seen by the shared deployment */
+                exchange.setRelativePath(sharedRequest.relativePath);
+                exchange.setResolvedPath(sharedRequest.resolvedPath);
+            }
             try {
                 handler.handleRequest(exchange);
             } catch (IOException e) {
@@ -416,6 +788,14 @@ public class CamelEndpointDeployerService implements Service<CamelEndpointDeploy
             }
         }
 
+    }
+
+    /**
+     * An {@link HttpHandler} that can be invoked on the IO thread, because it decides by itself which requests to
+     * dispatch to a worker thread and sets the TCCL where needed. Only honored for handlers registered directly with
+     * the {@link Host}.
+     */
+    public interface DispatchingHttpHandler extends HttpHandler {
     }
 
 	public interface EndpointHttpHandler {
@@ -431,8 +811,18 @@ public class CamelEndpointDeployerService implements Service<CamelEndpointDeploy
 
         @Override
         protected void service(HttpServletRequest req, HttpServletResponse res) throws ServletException, IOException {
-            if (endpointHttpHandler != null) {
-                endpointHttpHandler.service(getServletContext(), req, res);
+            EndpointHttpHandler handler = endpointHttpHandler;
+            if (handler == null) {
+                /* the shared endpoint deployment passes the handler along with the exchange */
+                final ServletRequestContext requestContext = ServletRequestContext.current();
+                final SharedEndpointRequest sharedRequest = requestContext != null
+                        ? requestContext.getExchange().getAttachment(SHARED_ENDPOINT_REQUEST_KEY) : null;
+                if (sharedRequest != null) {
+                    handler = sharedRequest.endpointHttpHandler;
+                }
+            }
+            if (handler != null) {
+                handler.service(getServletContext(), req, res);
             }
         }
 
@@ -442,60 +832,194 @@ public class CamelEndpointDeployerService implements Service<CamelEndpointDeploy
 
     }
 
+    /**
+     * The security constraints of the main deployment with their URL patterns parsed once, so that the constraints
+     * applicable to each endpoint can be derived without re-parsing the patterns.
+     * <p>
+     * A pattern only matches a path whose tokens match the leading tokens of the pattern. Patterns are therefore
+     * indexed by their first token after the leading slash if that token is free of wildcards, so that an endpoint
+     * only visits the patterns sharing its first path segment plus those that could not be indexed.
+     */
+    static final class CompiledConstraints {
+        private final String mainContextPath;
+        /** All patterns in the order of the main deployment */
+        private final List<IndexedPattern> patterns = new ArrayList<>();
+        /** The patterns by their literal first token */
+        private final Map<String, List<IndexedPattern>> patternsByFirstToken = new HashMap<>();
+        /** The patterns without a literal first token */
+        private final List<IndexedPattern> unindexedPatterns = new ArrayList<>();
+
+        CompiledConstraints(DeploymentInfo mainDeploymentInfo) {
+            this.mainContextPath = mainDeploymentInfo.getContextPath();
+            for (SecurityConstraint securityConstraint : mainDeploymentInfo.getSecurityConstraints()) {
+                final CompiledConstraint constraint = new CompiledConstraint(securityConstraint);
+                for (CompiledResourceCollection resourceCollection : constraint.resourceCollections) {
+                    for (UrlPattern pattern : resourceCollection.urlPatterns) {
+                        final IndexedPattern indexedPattern = new IndexedPattern(patterns.size(), constraint, resourceCollection, pattern);
+                        patterns.add(indexedPattern);
+                        final String firstToken = pattern.getFirstToken();
+                        if (firstToken != null && !pattern.isMatchAllEndpoints() && firstToken.indexOf('*') < 0) {
+                            patternsByFirstToken.computeIfAbsent(firstToken, k -> new ArrayList<>()).add(indexedPattern);
+                        } else {
+                            unindexedPatterns.add(indexedPattern);
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return the patterns that may match the given path tokens, in the order of the main deployment
+         */
+        List<IndexedPattern> candidates(String[] pathTokens) {
+            if (pathTokens.length < 2 || "*".equals(pathTokens[1])) {
+                // Shorter paths match on the leading slash only
+                return patterns;
+            }
+            final List<IndexedPattern> indexed = patternsByFirstToken.get(pathTokens[1]);
+            if (indexed == null) {
+                return unindexedPatterns;
+            }
+            /* merge both lists by ordinal */
+            final List<IndexedPattern> result = new ArrayList<>(indexed.size() + unindexedPatterns.size());
+            int i = 0, j = 0;
+            while (i < indexed.size() || j < unindexedPatterns.size()) {
+                if (j == unindexedPatterns.size() || i < indexed.size() && indexed.get(i).ordinal < unindexedPatterns.get(j).ordinal) {
+                    result.add(indexed.get(i++));
+                } else {
+                    result.add(unindexedPatterns.get(j++));
+                }
+            }
+            return result;
+        }
+    }
+
+    static final class IndexedPattern {
+        private final int ordinal;
+        private final CompiledConstraint constraint;
+        private final CompiledResourceCollection resourceCollection;
+        private final UrlPattern pattern;
+
+        IndexedPattern(int ordinal, CompiledConstraint constraint, CompiledResourceCollection resourceCollection, UrlPattern pattern) {
+            this.ordinal = ordinal;
+            this.constraint = constraint;
+            this.resourceCollection = resourceCollection;
+            this.pattern = pattern;
+        }
+
+        @Override
+        public String toString() {
+            return pattern.source;
+        }
+    }
+
+    static final class CompiledConstraint {
+        private final SecurityConstraint source;
+        private final List<CompiledResourceCollection> resourceCollections;
+
+        CompiledConstraint(SecurityConstraint source) {
+            this.source = source;
+            final List<CompiledResourceCollection> list = new ArrayList<>();
+            for (WebResourceCollection resourceCollection : source.getWebResourceCollections()) {
+                list.add(new CompiledResourceCollection(resourceCollection));
+            }
+            this.resourceCollections = list;
+        }
+    }
+
+    static final class CompiledResourceCollection {
+        private final WebResourceCollection source;
+        private final List<UrlPattern> urlPatterns;
+
+        CompiledResourceCollection(WebResourceCollection source) {
+            this.source = source;
+            final List<UrlPattern> list = new ArrayList<>();
+            for (String urlPattern : source.getUrlPatterns()) {
+                list.add(new UrlPattern(urlPattern));
+            }
+            this.urlPatterns = list;
+        }
+    }
+
     static class UrlPattern {
 
         private final String source;
+        /** The pattern split into segments and slashes */
+        private final String[] tokens;
+        /** The compiled segment patterns; {@code null} for slashes */
+        private final Pattern[] segmentPatterns;
+        /** The pattern remainder starting at the given token, as returned by {@link #relativize(String)} */
+        private final String[] remainders;
 
         public UrlPattern(String source) {
             super();
             this.source = source;
+            this.tokens = tokenize(source);
+            this.segmentPatterns = new Pattern[tokens.length];
+            for (int i = 0; i < tokens.length; i++) {
+                final String patternToken = tokens[i];
+                if (!patternToken.equals("/")) {
+                    final StringTokenizer segmentTokenizer = new StringTokenizer(patternToken, "*", true);
+                    final StringBuilder segmentPatternBuilder = new StringBuilder(patternToken.length());
+                    while (segmentTokenizer.hasMoreTokens()) {
+                        final String segmentToken = segmentTokenizer.nextToken();
+                        if ("*".equals(segmentToken)) {
+                            segmentPatternBuilder.append(".*");
+                        } else {
+                            segmentPatternBuilder.append(Pattern.quote(segmentToken));
+                        }
+                    }
+                    segmentPatterns[i] = Pattern.compile(segmentPatternBuilder.toString());
+                }
+            }
+            this.remainders = new String[tokens.length + 1];
+            final StringBuilder result = new StringBuilder();
+            remainders[tokens.length] = "";
+            for (int i = tokens.length - 1; i >= 0; i--) {
+                result.insert(0, tokens[i]);
+                remainders[i] = result.charAt(0) != '/' ? "/" + result.toString() : result.toString();
+            }
+        }
+
+        static String[] tokenize(String path) {
+            final StringTokenizer tokenizer = new StringTokenizer(path, "/", true);
+            final String[] result = new String[tokenizer.countTokens()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = tokenizer.nextToken();
+            }
+            return result;
+        }
+
+        /**
+         * @return the token following the leading one or {@code null} if the pattern has less than two tokens
+         */
+        String getFirstToken() {
+            return tokens.length >= 2 ? tokens[1] : null;
+        }
+
+        boolean isMatchAllEndpoints() {
+            return MATCH_ALL_ENDPOINT_URI_PREFIX.equals(source);
         }
 
         public String relativize(String path) {
-            final StringTokenizer patternTokenizer = new StringTokenizer(source, "/", true);
-            final StringTokenizer pathTokenizer = new StringTokenizer(path, "/", true);
+            return relativize(tokenize(path));
+        }
+
+        String relativize(String[] pathTokens) {
             /* skip the common segments */
-            while (pathTokenizer.hasMoreTokens()) {
-                if (!patternTokenizer.hasMoreTokens()) {
-                    return null;
-                }
-                final String patternToken = patternTokenizer.nextToken();
-                final String pathToken = pathTokenizer.nextToken();
-                final boolean isSlash = patternToken.equals("/");
+            if (pathTokens.length > tokens.length) {
+                return null;
+            }
+            for (int i = 0; i < pathTokens.length; i++) {
+                final String pathToken = pathTokens[i];
+                final boolean isSlash = segmentPatterns[i] == null;
                 if (isSlash != pathToken.equals("/")) {
                     return null;
-                } else if (!isSlash) {
-                    if ("*".equals(pathToken)) {
-                        continue;
-                    } else {
-                        final StringTokenizer segmentTokenizer = new StringTokenizer(patternToken, "*", true);
-                        final StringBuilder segmentPatternBuilder = new StringBuilder(patternToken.length());
-                        while (segmentTokenizer.hasMoreTokens()) {
-                            final String segmentToken = segmentTokenizer.nextToken();
-                            if ("*".equals(segmentToken)) {
-                                segmentPatternBuilder.append(".*");
-                            } else {
-                                segmentPatternBuilder.append(Pattern.quote(segmentToken));
-                            }
-                        }
-                        final Pattern pat = Pattern.compile(segmentPatternBuilder.toString());
-                        if (!pat.matcher(pathToken).matches()) {
-                            return null;
-                        }
-                    }
+                } else if (!isSlash && !"*".equals(pathToken) && !segmentPatterns[i].matcher(pathToken).matches()) {
+                    return null;
                 }
             }
-            final StringBuilder result = new StringBuilder();
-            while (patternTokenizer.hasMoreTokens()) {
-                result.append(patternTokenizer.nextToken());
-            }
-            if (result.length() == 0) {
-                return "";
-            } else if (result.charAt(0) != '/') {
-                return "/" + result.toString();
-            } else {
-                return result.toString();
-            }
+            return remainders[pathTokens.length];
         }
     }
 }
@@ -23,10 +23,16 @@ import static org.wildfly.extension.camel.CamelLogger.LOGGER;
 import static org.wildfly.extension.camel.service.CamelEndpointDeployerService.deployerServiceName;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
-import org.jboss.as.server.CurrentServiceContainer;
 import org.jboss.as.server.deployment.DeploymentUnit;
 import org.jboss.modules.ModuleClassLoader;
 import org.jboss.msc.service.AbstractService;
@@ -50,6 +56,11 @@ import io.undertow.server.HttpHandler;
  * deploys them instantly if the {@link #deployerService} is available already. The split between
  * {@link CamelEndpointDeploymentSchedulerService} and {@link CamelEndpointDeployerService} is necessary because the
  * requests to deploy HTTP endpoints may come in phases before the {@link CamelEndpointDeployerService} is available.
+ * <p>
+ * Endpoints are exposed in batches. Batching is opportunistic: a batch collects the endpoints scheduled until its MSC
+ * service starts, which happens as soon as the {@link CamelEndpointDeployerService} is up. Endpoints scheduled before
+ * that share a single batch; once the deployer is up, a new batch usually starts right away and so holds only the
+ * endpoints scheduled while it was being installed, which may be a single one.
  *
  * @author <a href="https://github.com/ppalaga">Peter Palaga</a>
  */
@@ -64,6 +75,13 @@ public class CamelEndpointDeploymentSchedulerService implements Service<CamelEnd
     private final DeploymentUnit deploymentUnit;
     private final ServiceTarget serviceTarget;
     private final ServiceName serviceName;
+    private volatile ServiceContainer serviceContainer;
+
+    /** The batch each scheduled {@link URI} belongs to; also guards {@link #openBatch} and {@link #batchCount} */
+    private final Map<URI, EndpointBatch> batches = new HashMap<>();
+    /** The batch that still accepts endpoints because its service has not started yet */
+    private EndpointBatch openBatch;
+    private int batchCount;
 
     CamelEndpointDeploymentSchedulerService(DeploymentUnit deploymentUnit, ServiceName serviceName, ServiceTarget serviceTarget) {
         this.deploymentUnit = deploymentUnit;
@@ -113,56 +131,111 @@ public class CamelEndpointDeploymentSchedulerService implements Service<CamelEnd
         return deploymentUnitServiceName.append(SERVICE_NAME);
     }
 
+    /**
+     * Schedules the given {@link EndpointHttpHandler} for deployment under the given {@link URI} and waits a bounded
+     * time for it to be exposed if the {@link CamelEndpointDeployerService} is up already.
+     */
     public void schedule(URI uri, EndpointHttpHandler httpHandler) {
-    	scheduleInternal(uri, httpHandler);
+        awaitDeployment(uri, scheduleInternal(uri, httpHandler));
     }
 
+    /**
+     * Schedules the given {@link HttpHandler} for deployment under the given {@link URI} and waits a bounded time for
+     * it to be exposed if the {@link CamelEndpointDeployerService} is up already.
+     */
     public void schedule(URI uri, HttpHandler httpHandler) {
-    	scheduleInternal(uri, httpHandler);
-    }
-
-    @SuppressWarnings("deprecation")
-	private void scheduleInternal(URI uri, Object httpHandler) {
-		ServiceName auxServiceName = serviceName.append(uri.getPath());
-		ServiceName deployerServiceName = deployerServiceName(deploymentUnit.getServiceName());
-	    InjectedValue<CamelEndpointDeployerService> deployerServiceSupplier = new InjectedValue<>();
-		ServiceBuilder<Void> sb = serviceTarget.addService(auxServiceName, new AbstractService<Void>() {
-
-			@Override
-			public void start(StartContext context) throws StartException {
-				CamelEndpointDeployerService deployerService = deployerServiceSupplier.getValue();
-            	if (httpHandler instanceof EndpointHttpHandler)
-            		deployerService.deploy(uri, (EndpointHttpHandler) httpHandler);
-            	else if (httpHandler instanceof HttpHandler)
-            		deployerService.deploy(uri, (HttpHandler) httpHandler);
-			}
-
-			@Override
-			public void stop(StopContext context) {
-				CamelEndpointDeployerService deployerService = deployerServiceSupplier.getValue();
-                deployerService.undeploy(uri);
-			}
-		});
-		sb.addDependency(deployerServiceName, CamelEndpointDeployerService.class, deployerServiceSupplier);
-		ServiceController<Void> controller = sb.install();
-		try {
-			controller.awaitValue(4, TimeUnit.SECONDS);
-		} catch (InterruptedException ex) {
-			// ignore
-		} catch (TimeoutException ex) {				
-			LOGGER.debug("Endpoint service for {} from deployment {} faild to start up in time", uri, deploymentUnit.getName());
-		}
+        awaitDeployment(uri, scheduleInternal(uri, httpHandler));
+    }
+
+    /**
+     * Schedules the given {@link EndpointHttpHandler} for deployment under the given {@link URI} without blocking.
+     *
+     * @return a {@link CompletableFuture} completed once the endpoint is exposed
+     */
+    public CompletableFuture<Void> scheduleAsync(URI uri, EndpointHttpHandler httpHandler) {
+        return scheduleInternal(uri, httpHandler);
+    }
+
+    /**
+     * Schedules the given {@link HttpHandler} for deployment under the given {@link URI} without blocking.
+     *
+     * @return a {@link CompletableFuture} completed once the endpoint is exposed
+     */
+    public CompletableFuture<Void> scheduleAsync(URI uri, HttpHandler httpHandler) {
+        return scheduleInternal(uri, httpHandler);
+    }
+
+    /**
+     * Adds the given endpoint to the currently open {@link EndpointBatch}, opening and installing a new one if there
+     * is none. A batch stays open until its service is started, so that all endpoints scheduled in the meantime (e.g.
+     * during a single Camel context start) are exposed by a single MSC service.
+     */
+    private CompletableFuture<Void> scheduleInternal(URI uri, Object httpHandler) {
+        final ScheduledEndpoint endpoint = new ScheduledEndpoint(uri, httpHandler);
+        final EndpointBatch batch;
+        final boolean install;
+        synchronized (batches) {
+            install = openBatch == null;
+            if (install) {
+                openBatch = new EndpointBatch(serviceName.append("batch", String.valueOf(++batchCount)));
+            }
+            batch = openBatch;
+            batch.endpoints.put(uri, endpoint);
+            batches.put(uri, batch);
+        }
+        if (install) {
+            batch.install();
+        }
+        return endpoint.future;
+    }
+
+    private void awaitDeployment(URI uri, CompletableFuture<Void> future) {
+        final ServiceName deployerServiceName = deployerServiceName(deploymentUnit.getServiceName());
+        final ServiceContainer container = serviceContainer;
+        final ServiceController<?> deployerController = container != null ? container.getService(deployerServiceName) : null;
+        if (deployerController == null || deployerController.getState() != ServiceController.State.UP) {
+            // The endpoint gets exposed as soon as the deployer service comes up
+            LOGGER.debug("Endpoint service for {} from deployment {} scheduled for deployment", uri, deploymentUnit.getName());
+            return;
+        }
+        try {
+            future.get(4, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Cannot deploy endpoint " + uri, ex.getCause());
+        } catch (TimeoutException ex) {
+            LOGGER.debug("Endpoint service for {} from deployment {} faild to start up in time", uri, deploymentUnit.getName());
+        }
     }
 
     public void unschedule(URI uri) {
-		ServiceName auxServiceName = serviceName.append(uri.getPath());
-        ServiceContainer serviceContainer = CurrentServiceContainer.getServiceContainer();
-		ServiceController<?> controller = serviceContainer.getRequiredService(auxServiceName);
-		controller.setMode(Mode.REMOVE);
+        final EndpointBatch batch;
+        final ScheduledEndpoint endpoint;
+        final boolean deployed;
+        final boolean remove;
+        synchronized (batches) {
+            batch = batches.remove(uri);
+            if (batch == null) {
+                return;
+            }
+            endpoint = batch.endpoints.remove(uri);
+            deployed = endpoint != null && endpoint.deployed;
+            remove = batch.endpoints.isEmpty() && batch != openBatch;
+        }
+        if (deployed) {
+            batch.deployerServiceSupplier.getValue().undeploy(uri);
+        } else if (endpoint != null) {
+            endpoint.future.cancel(false);
+        }
+        if (remove) {
+            batch.controller.setMode(Mode.REMOVE);
+        }
     }
 
     @Override
     public void start(StartContext context) throws StartException {
+        serviceContainer = context.getController().getServiceContainer();
         LOGGER.debug("{} started for deployment {}", SERVICE_NAME, deploymentUnit.getName());
     }
 
@@ -174,4 +247,104 @@ public class CamelEndpointDeploymentSchedulerService implements Service<CamelEnd
     public CamelEndpointDeploymentSchedulerService getValue() throws IllegalStateException {
         return this;
     }
+
+    static final class ScheduledEndpoint {
+        private final URI uri;
+        private final Object httpHandler;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        /** Always accessed under {@link CamelEndpointDeploymentSchedulerService#batches} lock */
+        private boolean deployed;
+
+        ScheduledEndpoint(URI uri, Object httpHandler) {
+            this.uri = uri;
+            this.httpHandler = httpHandler;
+        }
+    }
+
+    /**
+     * A group of endpoints exposed by a single MSC service that depends on the {@link CamelEndpointDeployerService}.
+     */
+    final class EndpointBatch extends AbstractService<Void> {
+        private final ServiceName batchServiceName;
+        private final InjectedValue<CamelEndpointDeployerService> deployerServiceSupplier = new InjectedValue<>();
+        /** Always accessed under {@link CamelEndpointDeploymentSchedulerService#batches} lock */
+        private final Map<URI, ScheduledEndpoint> endpoints = new LinkedHashMap<>();
+        private volatile ServiceController<Void> controller;
+
+        EndpointBatch(ServiceName batchServiceName) {
+            this.batchServiceName = batchServiceName;
+        }
+
+        @SuppressWarnings("deprecation")
+        void install() {
+            ServiceName deployerServiceName = deployerServiceName(deploymentUnit.getServiceName());
+            ServiceBuilder<Void> sb = serviceTarget.addService(batchServiceName, this);
+            sb.addDependency(deployerServiceName, CamelEndpointDeployerService.class, deployerServiceSupplier);
+            controller = sb.install();
+        }
+
+        @Override
+        public void start(StartContext context) throws StartException {
+            final List<ScheduledEndpoint> snapshot;
+            synchronized (batches) {
+                if (openBatch == this) {
+                    openBatch = null;
+                }
+                snapshot = new ArrayList<>(endpoints.values());
+            }
+            LOGGER.debug("Deploying {} endpoints from deployment {}", snapshot.size(), deploymentUnit.getName());
+            CamelEndpointDeployerService deployerService = deployerServiceSupplier.getValue();
+            for (ScheduledEndpoint endpoint : snapshot) {
+                synchronized (batches) {
+                    if (endpoints.get(endpoint.uri) != endpoint) {
+                        // Unscheduled since the snapshot was taken
+                        continue;
+                    }
+                }
+                try {
+                    if (endpoint.httpHandler instanceof EndpointHttpHandler) {
+                        deployerService.deploy(endpoint.uri, (EndpointHttpHandler) endpoint.httpHandler);
+                    } else if (endpoint.httpHandler instanceof HttpHandler) {
+                        deployerService.deploy(endpoint.uri, (HttpHandler) endpoint.httpHandler);
+                    }
+                    final boolean unscheduled;
+                    synchronized (batches) {
+                        unscheduled = endpoints.get(endpoint.uri) != endpoint;
+                        endpoint.deployed = !unscheduled;
+                    }
+                    if (unscheduled) {
+                        // unschedule() ran during the deployment and saw nothing to undeploy yet
+                        LOGGER.debug("Endpoint {} unscheduled while being deployed", endpoint.uri);
+                        deployerService.undeploy(endpoint.uri);
+                        continue;
+                    }
+                    endpoint.future.complete(null);
+                } catch (RuntimeException ex) {
+                    LOGGER.warn("Cannot deploy endpoint " + endpoint.uri + " from deployment " + deploymentUnit.getName(), ex);
+                    endpoint.future.completeExceptionally(ex);
+                }
+            }
+            synchronized (batches) {
+                if (endpoints.isEmpty()) {
+                    // All endpoints got unscheduled while this batch was open
+                    context.getController().setMode(Mode.REMOVE);
+                }
+            }
+        }
+
+        @Override
+        public void stop(StopContext context) {
+            final List<ScheduledEndpoint> snapshot;
+            synchronized (batches) {
+                snapshot = new ArrayList<>(endpoints.values());
+                for (ScheduledEndpoint endpoint : snapshot) {
+                    endpoint.deployed = false;
+                }
+            }
+            CamelEndpointDeployerService deployerService = deployerServiceSupplier.getValue();
+            for (ScheduledEndpoint endpoint : snapshot) {
+                deployerService.undeploy(endpoint.uri);
+            }
+        }
+    }
 }
@@ -0,0 +1,146 @@
+/*
+ * #%L
+ * Wildfly Camel :: Subsystem
+ * %%
+ * Copyright (C) 2013 - 2020 RedHat
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wildfly.extension.camel.service;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.wildfly.camel.utils.IllegalArgumentAssertion;
+
+import io.undertow.server.ExchangeCompletionListener;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.servlet.handlers.ServletRequestContext;
+import io.undertow.util.Headers;
+import io.undertow.util.SameThreadExecutor;
+import io.undertow.util.StatusCodes;
+
+/**
+ * An {@link HttpHandler} that bounds the number of requests concurrently served by the next handler. Requests beyond
+ * that limit wait in a bounded queue; once the queue is full too, they are rejected with
+ * {@code 503 Service Unavailable} and a {@code Retry-After} header.
+ * <p>
+ * Unlike Undertow's {@code RequestLimitingHandler}, admission and release never take a lock and a queue size of zero
+ * means that no request is queued at all.
+ * <p>
+ * Queued requests are resumed by dispatching the next handler to a worker thread, so the next handler must set up any
+ * thread context it needs itself. Requests that arrive while a servlet is being invoked cannot be parked and resumed
+ * outside of the servlet request; they are rejected instead of queued.
+ *
+ * @since 16-Oct-2020
+ */
+public final class ConcurrencyLimitingHandler implements HttpHandler {
+
+    private final HttpHandler next;
+    private final int maxConcurrentRequests;
+    private final int queueSize;
+    private final String retryAfter;
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Queue<HttpServerExchange> queue = new ConcurrentLinkedQueue<>();
+    private final ExchangeCompletionListener completionListener = (exchange, nextListener) -> {
+        try {
+            active.decrementAndGet();
+            drain();
+        } finally {
+            nextListener.proceed();
+        }
+    };
+
+    /**
+     * @param next the handler to limit
+     * @param maxConcurrentRequests the maximum number of requests served concurrently
+     * @param queueSize the maximum number of requests waiting for a free slot
+     * @param retryAfterSeconds the value of the {@code Retry-After} header sent with rejected requests
+     */
+    public ConcurrencyLimitingHandler(HttpHandler next, int maxConcurrentRequests, int queueSize, int retryAfterSeconds) {
+        IllegalArgumentAssertion.assertNotNull(next, "next");
+        IllegalArgumentAssertion.assertTrue(maxConcurrentRequests > 0, "maxConcurrentRequests must be positive");
+        IllegalArgumentAssertion.assertTrue(queueSize >= 0, "queueSize must not be negative");
+        IllegalArgumentAssertion.assertTrue(retryAfterSeconds >= 0, "retryAfterSeconds must not be negative");
+        this.next = next;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.queueSize = queueSize;
+        this.retryAfter = String.valueOf(retryAfterSeconds);
+    }
+
+    public HttpHandler getNext() {
+        return next;
+    }
+
+    public int getActiveRequests() {
+        return active.get();
+    }
+
+    public int getQueuedRequests() {
+        return queued.get();
+    }
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        if (tryAcquire()) {
+            exchange.addExchangeCompleteListener(completionListener);
+            next.handleRequest(exchange);
+        } else if (ServletRequestContext.current() == null && tryEnqueue()) {
+            // Keep the exchange open until it is resumed by drain()
+            exchange.dispatch(SameThreadExecutor.INSTANCE, () -> {
+                queue.offer(exchange);
+                drain();
+            });
+        } else {
+            exchange.setStatusCode(StatusCodes.SERVICE_UNAVAILABLE);
+            exchange.getResponseHeaders().put(Headers.RETRY_AFTER, retryAfter);
+            exchange.endExchange();
+        }
+    }
+
+    private boolean tryAcquire() {
+        int current;
+        do {
+            current = active.get();
+            if (current >= maxConcurrentRequests) {
+                return false;
+            }
+        } while (!active.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private boolean tryEnqueue() {
+        if (queued.incrementAndGet() <= queueSize) {
+            return true;
+        }
+        queued.decrementAndGet();
+        return false;
+    }
+
+    private void drain() {
+        while (!queue.isEmpty() && tryAcquire()) {
+            final HttpServerExchange exchange = queue.poll();
+            if (exchange == null) {
+                active.decrementAndGet();
+                return;
+            }
+            queued.decrementAndGet();
+            exchange.addExchangeCompleteListener(completionListener);
+            exchange.dispatch(next);
+        }
+    }
+}
@@ -22,9 +22,9 @@ package org.wildfly.extension.camel.service;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Consumer;
 
 import org.jboss.msc.service.AbstractService;
@@ -78,7 +78,10 @@ public class ContextCreateHandlerRegistryService extends AbstractService<Context
 
     final class ContextCreateHandlerRegistryImpl implements ContextCreateHandlerRegistry {
 
-        private final Map<ClassLoader, List<ContextCreateHandler>> handlerMapping = new HashMap<>();
+        // Immutable handler chains, replaced copy-on-write. The deployment processors remove the chains
+        // of a module again on undeploy.
+        private final ConcurrentMap<ClassLoader, List<ContextCreateHandler>> handlerMapping = new ConcurrentHashMap<>();
+        private volatile List<ContextCreateHandler> defaultHandlers = Collections.emptyList();
 
         ContextCreateHandlerRegistryImpl(final ServiceContainer serviceContainer, final ServiceTarget serviceTarget) {
 
@@ -100,53 +103,67 @@ public class ContextCreateHandlerRegistryService extends AbstractService<Context
 
         @Override
         public List<ContextCreateHandler> getContextCreateHandlers(ClassLoader classsLoader) {
-            List<ContextCreateHandler> result = new ArrayList<>();
-            synchronized (handlerMapping) {
-                List<ContextCreateHandler> handlers = handlerMapping.get(classsLoader);
-                if (handlers != null) {
-                    result.addAll(handlers);
-                }
+            if (classsLoader == null) {
+                return defaultHandlers;
             }
-            return Collections.unmodifiableList(result);
+            List<ContextCreateHandler> handlers = handlerMapping.get(classsLoader);
+            return handlers != null ? handlers : Collections.emptyList();
         }
 
         @Override
         public void addContextCreateHandler(ClassLoader classsLoader, ContextCreateHandler handler) {
-            synchronized (handlerMapping) {
-                List<ContextCreateHandler> handlers = handlerMapping.get(classsLoader);
-                if (handlers == null) {
-                    handlers = new ArrayList<>();
-                    handlerMapping.put(classsLoader, handlers);
+            if (classsLoader == null) {
+                synchronized (this) {
+                    defaultHandlers = append(defaultHandlers, handler);
                 }
-                handlers.add(handler);
+            } else {
+                handlerMapping.compute(classsLoader, (key, handlers) -> append(handlers, handler));
             }
         }
 
         @Override
         public void removeContextCreateHandler(ClassLoader classsLoader, ContextCreateHandler handler) {
-            synchronized (handlerMapping) {
-                List<ContextCreateHandler> handlers = handlerMapping.get(classsLoader);
-                if (handlers != null) {
-                    handlers.remove(handler);
-                    if (handlers.isEmpty()) {
-                        handlerMapping.remove(classsLoader);
-                    }
+            if (classsLoader == null) {
+                synchronized (this) {
+                    defaultHandlers = remove(defaultHandlers, handler);
                 }
+            } else {
+                handlerMapping.computeIfPresent(classsLoader, (key, handlers) -> {
+                    List<ContextCreateHandler> result = remove(handlers, handler);
+                    return result.isEmpty() ? null : result;
+                });
             }
         }
 
         @Override
         public void removeContextCreateHandlers(ClassLoader classsLoader) {
-            synchronized (handlerMapping) {
+            if (classsLoader == null) {
+                synchronized (this) {
+                    defaultHandlers = Collections.emptyList();
+                }
+            } else {
                 handlerMapping.remove(classsLoader);
             }
         }
 
         @Override
         public boolean containsKey(ClassLoader classLoader) {
-            synchronized (handlerMapping) {
-                return handlerMapping.containsKey(classLoader);
+            if (classLoader == null) {
+                return !defaultHandlers.isEmpty();
             }
+            return handlerMapping.containsKey(classLoader);
+        }
+
+        private List<ContextCreateHandler> append(List<ContextCreateHandler> handlers, ContextCreateHandler handler) {
+            List<ContextCreateHandler> result = handlers != null ? new ArrayList<>(handlers) : new ArrayList<>();
+            result.add(handler);
+            return Collections.unmodifiableList(result);
+        }
+
+        private List<ContextCreateHandler> remove(List<ContextCreateHandler> handlers, ContextCreateHandler handler) {
+            List<ContextCreateHandler> result = new ArrayList<>(handlers);
+            result.remove(handler);
+            return result.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(result);
         }
     }
 }
@@ -0,0 +1,93 @@
+package org.wildfly.extension.camel.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.wildfly.extension.camel.service.CamelEndpointDeployerService.CompiledConstraints;
+import org.wildfly.extension.camel.service.CamelEndpointDeployerService.UrlPattern;
+
+import io.undertow.servlet.api.DeploymentInfo;
+import io.undertow.servlet.api.SecurityConstraint;
+import io.undertow.servlet.api.WebResourceCollection;
+
+public class UrlPatternTest {
+
+    static void assertPath(String urlPattern, String path, String expectedRelativePattern) {
+        final UrlPattern pattern = new UrlPattern(urlPattern);
+package org.wildfly.extension.camel;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DescriptorValidationCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testDigestsSurviveReload() throws Exception {
+        Path cacheFile = folder.getRoot().toPath().resolve(DescriptorValidationCache.cacheFileName());
+        new DescriptorValidationCache(cacheFile, 8).setValidated("a");
+
+        DescriptorValidationCache cache = new DescriptorValidationCache(cacheFile, 8);
+        Assert.assertTrue(cache.isValidated("a"));
+        Assert.assertFalse(cache.isValidated("b"));
+    }
+
+    @Test
+    public void testCompactsOldestDigests() throws Exception {
+        Path cacheFile = folder.getRoot().toPath().resolve(DescriptorValidationCache.cacheFileName());
+        DescriptorValidationCache cache = new DescriptorValidationCache(cacheFile, 8);
+        for (int i = 0; i < 9; i++) {
+            cache.setValidated("digest" + i);
+        }
+
+        Assert.assertEquals(6, cache.size());
+        Assert.assertFalse(cache.isValidated("digest2"));
+        Assert.assertTrue(cache.isValidated("digest3"));
+        Assert.assertTrue(cache.isValidated("digest8"));
+
+        List<String> lines = Files.readAllLines(cacheFile, StandardCharsets.US_ASCII);
+        Assert.assertEquals(6, lines.size());
+        Assert.assertEquals("digest3", lines.get(0));
+    }
+
+    @Test
+    public void testDeletesFilesOfOtherVersions() throws Exception {
+        Path staleFile = folder.getRoot().toPath().resolve(DescriptorValidationCache.FILE_NAME_PREFIX + "-1.0-1.0");
+        Files.write(staleFile, "a".getBytes(StandardCharsets.US_ASCII));
+        Path cacheFile = folder.getRoot().toPath().resolve(DescriptorValidationCache.cacheFileName());
+
+        DescriptorValidationCache cache = new DescriptorValidationCache(cacheFile, 8);
+        Assert.assertFalse(cache.isValidated("a"));
+        Assert.assertFalse(Files.exists(staleFile));
+    }
+
+    @Test
+    public void testSelfContainedDescriptors() throws Exception {
+        Assert.assertTrue(DescriptorValidationCache.isSelfContained(bytes("<beans xmlns=\"http://www.springframework.org/schema/beans\""
+                + " xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">"
+                + "<camelContext xmlns=\"http://camel.apache.org/schema/spring\"/></beans>")));
+
+        Assert.assertFalse(DescriptorValidationCache.isSelfContained(bytes("<beans xmlns=\"http://www.springframework.org/schema/beans\">"
+                + "<import resource=\"other.xml\"/></beans>")));
+        Assert.assertFalse(DescriptorValidationCache.isSelfContained(bytes("<b:beans xmlns:b=\"http://www.springframework.org/schema/beans\">"
+                + "<b:import resource=\"other.xml\"/></b:beans>")));
+        Assert.assertFalse(DescriptorValidationCache.isSelfContained(bytes("<beans xmlns=\"http://www.springframework.org/schema/beans\""
+                + " xmlns:custom=\"http://example.com/schema/custom\"><custom:foo/></beans>")));
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,71 @@
+package org.wildfly.extension.camel.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.wildfly.extension.camel.service.CamelEndpointDeployerService.CompiledConstraints;
+import org.wildfly.extension.camel.service.CamelEndpointDeployerService.UrlPattern;
+
+import io.undertow.servlet.api.DeploymentInfo;
+import io.undertow.servlet.api.SecurityConstraint;
+import io.undertow.servlet.api.WebResourceCollection;
+
+public class UrlPatternTest {
+
+    static void assertPath(String urlPattern, String path, String expectedRelativePattern) {
+        final UrlPattern pattern = new UrlPattern(urlPattern);
+package org.wildfly.extension.camel.handler;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ClassLookupCacheTest {
+
+    @Test
+    public void testCachesMissingClasses() {
+        ClassLookupCache cache = new ClassLookupCache();
+        AtomicInteger lookups = new AtomicInteger();
+
+        Assert.assertNull(cache.getClass("org.acme.Missing", name -> {
+            lookups.incrementAndGet();
+            return null;
+        }));
+        Assert.assertNull(cache.getClass("org.acme.Missing", name -> {
+            lookups.incrementAndGet();
+            return null;
+        }));
+
+        Assert.assertEquals(1, lookups.get());
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testRatios() {
+        ClassLookupCache cache = new ClassLookupCache();
+        Assert.assertEquals(0.0, cache.getHitRatio(), 0.0);
+        Assert.assertEquals(0.0, cache.getMissRatio(), 0.0);
+
+        for (int i = 0; i < 4; i++) {
+            Assert.assertSame(String.class, cache.getClass("java.lang.String", name -> String.class));
+        }
+
+        Assert.assertEquals(0.75, cache.getHitRatio(), 0.0);
+        Assert.assertEquals(0.25, cache.getMissRatio(), 0.0);
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testBoundedEntries() {
+        ClassLookupCache cache = new ClassLookupCache();
+        for (int i = 0; i <= ClassLookupCache.MAX_ENTRIES; i++) {
+            cache.getResource("resource" + i, name -> null);
+        }
+        Assert.assertEquals(ClassLookupCache.MAX_ENTRIES, cache.size());
+    }
+}
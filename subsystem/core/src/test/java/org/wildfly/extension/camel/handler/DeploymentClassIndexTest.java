@@ -0,0 +1,95 @@
+/*
+ * #%L
+ * Wildfly Camel :: Subsystem
+ * %%
+ * Copyright (C) 2013 - 2020 RedHat
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wildfly.extension.camel.handler;
+
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DeploymentClassIndexTest {
+
+    private final ClassLoader classLoader = getClass().getClassLoader();
+    private final Map<String, Set<String>> annotatedClasses = new HashMap<>();
+    private final Map<String, Set<String>> directSubtypes = new HashMap<>();
+    private final TreeSet<String> classNames = new TreeSet<>();
+
+    @Test
+    public void testAssignableThroughLibraryType() {
+        addClass("org.acme.MyThread", Thread.class.getName());
+        addClass("org.acme.SubThread", "org.acme.MyThread");
+        addClass("org.acme.Other", Object.class.getName());
+
+        Set<String> candidates = index().getAssignableCandidates(Collections.singleton(Runnable.class), classLoader);
+        Assert.assertEquals(new TreeSet<>(Arrays.asList("org.acme.MyThread", "org.acme.SubThread")), candidates);
+    }
+
+    @Test
+    public void testAssignableToIndexedType() {
+        addClass("org.acme.Base", Object.class.getName());
+        addClass("org.acme.Impl", "org.acme.Base");
+        addClass("org.acme.Other", Object.class.getName());
+
+        Set<String> candidates = index().getAssignableCandidates(Collections.singleton(Object.class), classLoader);
+        Assert.assertEquals(classNames, candidates);
+    }
+
+    @Test
+    public void testAnnotatedDirectlyMetaAnnotatedOrInherited() {
+        addClass("org.acme.Annotated", Object.class.getName(), Marker.class);
+        addClass("org.acme.MetaAnnotated", Object.class.getName(), Meta.class);
+        addClass("org.acme.Inheriting", "org.acme.Annotated");
+        addClass("org.acme.Other", Object.class.getName(), Deprecated.class);
+
+        Set<String> candidates = index().getAnnotatedCandidates(Collections.singleton(Marker.class), classLoader);
+        Assert.assertEquals(new TreeSet<>(Arrays.asList("org.acme.Annotated", "org.acme.Inheriting", "org.acme.MetaAnnotated")), candidates);
+    }
+
+    private void addClass(String className, String superName, Class<?>... annotations) {
+        classNames.add(className);
+        directSubtypes.computeIfAbsent(superName, k -> new LinkedHashSet<>()).add(className);
+        for (Class<?> annotation : annotations) {
+            annotatedClasses.computeIfAbsent(annotation.getName(), k -> new LinkedHashSet<>()).add(className);
+        }
+    }
+
+    private DeploymentClassIndex index() {
+        return new DeploymentClassIndex(classNames, annotatedClasses, directSubtypes);
+    }
+
+    @Inherited
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Marker {
+    }
+
+    @Marker
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Meta {
+    }
+}
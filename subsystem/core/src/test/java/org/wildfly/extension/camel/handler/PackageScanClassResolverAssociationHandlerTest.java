@@ -0,0 +1,76 @@
+package org.wildfly.extension.camel.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.wildfly.extension.camel.service.CamelEndpointDeployerService.CompiledConstraints;
+import org.wildfly.extension.camel.service.CamelEndpointDeployerService.UrlPattern;
+
+import io.undertow.servlet.api.DeploymentInfo;
+import io.undertow.servlet.api.SecurityConstraint;
+import io.undertow.servlet.api.WebResourceCollection;
+
+public class UrlPatternTest {
+
+    static void assertPath(String urlPattern, String path, String expectedRelativePattern) {
+        final UrlPattern pattern = new UrlPattern(urlPattern);
+package org.wildfly.extension.camel.handler;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.wildfly.extension.camel.handler.PackageScanClassResolverAssociationHandler.ScanCriteria;
+import org.wildfly.extension.camel.handler.PackageScanClassResolverAssociationHandler.ScanKey;
+
+public class PackageScanClassResolverAssociationHandlerTest {
+
+    @Test
+    public void testKeyUsesAnnotationTypes() {
+        ScanKey fooKey = annotatedWith("org/acme", Foo.Marker.class);
+        ScanKey barKey = annotatedWith("org/acme", Bar.Marker.class);
+
+        // Same simple name, different annotations
+        Assert.assertNotEquals(fooKey, barKey);
+        Assert.assertEquals(fooKey, annotatedWith("org/acme", Foo.Marker.class));
+        Assert.assertEquals(fooKey.hashCode(), annotatedWith("org/acme", Foo.Marker.class).hashCode());
+        Assert.assertNotEquals(fooKey, annotatedWith("org/other", Foo.Marker.class));
+    }
+
+    @Test
+    public void testKeyUsesScanKind() {
+        ScanKey annotated = new ScanKey("org/acme", new ScanCriteria(ScanCriteria.ANNOTATED_WITH, Collections.singleton(Foo.Marker.class)));
+        ScanKey assignable = new ScanKey("org/acme", new ScanCriteria(ScanCriteria.ASSIGNABLE_TO, Collections.singleton(Foo.Marker.class)));
+        Assert.assertNotEquals(annotated, assignable);
+    }
+
+    @Test
+    public void testKeyIgnoresTypeOrder() {
+        ScanKey first = new ScanKey("org/acme", new ScanCriteria(ScanCriteria.ANNOTATED_WITH, new HashSet<>(Arrays.asList(Foo.Marker.class, Bar.Marker.class))));
+        ScanKey second = new ScanKey("org/acme", new ScanCriteria(ScanCriteria.ANNOTATED_WITH, new HashSet<>(Arrays.asList(Bar.Marker.class, Foo.Marker.class))));
+        Assert.assertEquals(first, second);
+    }
+
+    private static ScanKey annotatedWith(String packageName, Class<?> annotation) {
+        return new ScanKey(packageName, new ScanCriteria(ScanCriteria.ANNOTATED_WITH, Collections.singleton(annotation)));
+    }
+
+    static final class Foo {
+        @Retention(RetentionPolicy.RUNTIME)
+        @interface Marker {
+        }
+    }
+
+    static final class Bar {
+        @Retention(RetentionPolicy.RUNTIME)
+        @interface Marker {
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package org.wildfly.extension.camel.service;
+
+import java.util.Arrays;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.wildfly.extension.camel.service.CamelContextRegistryService.RegistrySnapshot;
+import org.wildfly.extension.camel.service.CamelEndpointDeployerService.CompiledConstraints;
+import org.wildfly.extension.camel.service.CamelEndpointDeployerService.UrlPattern;
+
+import io.undertow.servlet.api.DeploymentInfo;
+import io.undertow.servlet.api.SecurityConstraint;
+import io.undertow.servlet.api.WebResourceCollection;
+
+public class UrlPatternTest {
+
+    static void assertPath(String urlPattern, String path, String expectedRelativePattern) {
+        final UrlPattern pattern = new UrlPattern(urlPattern);
+package org.wildfly.extension.camel.service;
+
+import java.util.List;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.Route;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.model.ModelCamelContext;
+import org.apache.camel.model.RouteDefinition;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CamelContextRegistryServiceTest {
+
+    static final String ROUTES_DEFINITION = "<route id='hello'><from uri='direct:start'/><transform><simple>Hello #{body}</simple></transform></route>";
+
+    @Test
+    public void testRoutesOnly() throws Exception {
+        Assert.assertTrue(CamelContextRegistryService.isRoutesOnly(ROUTES_DEFINITION));
+        Assert.assertFalse(CamelContextRegistryService.isRoutesOnly("<bean id='foo' class='java.lang.Object'/>" + ROUTES_DEFINITION));
+    }
+
+    @Test
+    public void testLoadRouteDefinitions() throws Exception {
+        CamelContext camelctx = new DefaultCamelContext();
+        List<RouteDefinition> routes = CamelContextRegistryService.loadRouteDefinitions(camelctx, ROUTES_DEFINITION);
+        Assert.assertEquals(1, routes.size());
+        Assert.assertEquals("hello", routes.get(0).getId());
+
+        camelctx.adapt(ModelCamelContext.class).addRouteDefinitions(routes);
+        camelctx.start();
+        try {
+            ProducerTemplate producer = camelctx.createProducerTemplate();
+            Assert.assertEquals("Hello Kermit", producer.requestBody("direct:start", "Kermit", String.class));
+        } finally {
+            camelctx.close();
+        }
+    }
+
+    @Test
+    public void testUpdateChangesOneRoute() throws Exception {
+        String oldDefinition = route("a", "A") + route("b", "B");
+        CamelContext camelctx = startContext(oldDefinition);
+        try {
+            Route routeA = camelctx.getRoute("a");
+            Route routeB = camelctx.getRoute("b");
+
+            Assert.assertFalse(CamelContextRegistryService.updateRoutes(camelctx, oldDefinition, route("a", "A") + route("b", "C")));
+
+            Assert.assertSame(routeA, camelctx.getRoute("a"));
+            Assert.assertNotSame(routeB, camelctx.getRoute("b"));
+            ProducerTemplate producer = camelctx.createProducerTemplate();
+            Assert.assertEquals("A Kermit", producer.requestBody("direct:a", "Kermit", String.class));
+            Assert.assertEquals("C Kermit", producer.requestBody("direct:b", "Kermit", String.class));
+        } finally {
+            camelctx.close();
+        }
+    }
+
+    @Test
+    public void testFailingUpdateKeepsRoutes() throws Exception {
+        String oldDefinition = route("a", "A") + route("b", "B");
+        CamelContext camelctx = startContext(oldDefinition);
+        try {
+            Route routeA = camelctx.getRoute("a");
+            String newDefinition = route("a", "A") + "<route id='b'><from uri='direct:b'/><to uri='unknown-component:b'/></route>";
+            try {
+                CamelContextRegistryService.updateRoutes(camelctx, oldDefinition, newDefinition);
+                Assert.fail("Exception expected");
+            } catch (Exception ex) {
+                // expected
+            }
+
+            Assert.assertSame(routeA, camelctx.getRoute("a"));
+            Assert.assertEquals(2, camelctx.getRoutes().size());
+            ProducerTemplate producer = camelctx.createProducerTemplate();
+            Assert.assertEquals("B Kermit", producer.requestBody("direct:b", "Kermit", String.class));
+        } finally {
+            camelctx.close();
+        }
+    }
+
+    @Test
+    public void testUpdateWithoutRouteIdsRequiresReload() throws Exception {
+        String oldDefinition = route("a", "A");
+        CamelContext camelctx = startContext(oldDefinition);
+        try {
+            Assert.assertTrue(CamelContextRegistryService.updateRoutes(camelctx, oldDefinition, "<route><from uri='direct:a'/><to uri='log:a'/></route>"));
+            Assert.assertEquals(1, camelctx.getRoutes().size());
+        } finally {
+            camelctx.close();
+        }
+    }
+
+    @Test
+    public void testSnapshotIndexes() throws Exception {
+        ClassLoader classLoader = new URLClassLoader(new URL[0]);
+        CamelContext first = context("first", classLoader);
+        CamelContext second = context("second", classLoader);
+        CamelContext other = context("other", new URLClassLoader(new URL[0]));
+
+        RegistrySnapshot snapshot = RegistrySnapshot.EMPTY.with(first).with(second).with(other);
+        Assert.assertEquals(List.of("first", "second", "other"), snapshot.names);
+        Assert.assertSame(second, snapshot.contextsByName.get("second"));
+        Assert.assertEquals(List.of(first, second), List.copyOf(snapshot.contextsByClassLoader.get(classLoader)));
+
+        snapshot = snapshot.without(first);
+        Assert.assertEquals(Collections.singleton(second), snapshot.contextsByClassLoader.get(classLoader));
+        Assert.assertNull(snapshot.contextsByName.get("first"));
+
+        snapshot = snapshot.without(second);
+        Assert.assertNull(snapshot.contextsByClassLoader.get(classLoader));
+    }
+
+    private static CamelContext context(String name, ClassLoader classLoader) {
+        DefaultCamelContext camelctx = new DefaultCamelContext();
+        camelctx.setName(name);
+        camelctx.setApplicationContextClassLoader(classLoader);
+        return camelctx;
+    }
+
+    private static CamelContext startContext(String contextDefinition) throws Exception {
+        CamelContext camelctx = new DefaultCamelContext();
+        camelctx.adapt(ModelCamelContext.class).addRouteDefinitions(CamelContextRegistryService.loadRouteDefinitions(camelctx, contextDefinition));
+        camelctx.start();
+        return camelctx;
+    }
+
+    private static String route(String id, String greeting) {
+        return "<route id='" + id + "'><from uri='direct:" + id + "'/><transform><simple>" + greeting + " #{body}</simple></transform></route>";
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * #%L
+ * Wildfly Camel :: Subsystem
+ * %%
+ * Copyright (C) 2013 - 2020 RedHat
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wildfly.extension.camel.service;
+
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.jboss.as.server.deployment.DeploymentUnit;
+import org.jboss.msc.service.ServiceContainer;
+import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.StopContext;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.undertow.server.HttpHandler;
+
+public class CamelEndpointDeploymentSchedulerServiceTest {
+
+    static final ServiceName DEPLOYMENT_NAME = ServiceName.of("jboss", "deployment", "unit", "test.war");
+
+    private ServiceContainer container;
+    private CamelEndpointDeploymentSchedulerService scheduler;
+
+    @Before
+    public void before() throws Exception {
+        container = ServiceContainer.Factory.create("test");
+        scheduler = CamelEndpointDeploymentSchedulerService.addService(deploymentUnit(), container).getService().getValue();
+        container.awaitStability();
+    }
+
+    @After
+    public void after() throws Exception {
+        container.shutdown();
+        container.awaitTermination();
+    }
+
+    @Test
+    public void testEndpointsScheduledBeforeDeployerShareBatch() throws Exception {
+        CompletableFuture<Void> foo = scheduler.scheduleAsync(URI.create("http://localhost/foo"), handler());
+        CompletableFuture<Void> bar = scheduler.scheduleAsync(URI.create("http://localhost/bar"), handler());
+        container.awaitStability();
+
+        Assert.assertNotNull(container.getService(batchName(1)));
+        Assert.assertNull(container.getService(batchName(2)));
+        Assert.assertFalse(foo.isDone());
+        Assert.assertFalse(bar.isDone());
+
+        RecordingDeployerService deployer = installDeployer();
+        foo.get();
+        bar.get();
+        Assert.assertEquals(2, deployer.deployed.size());
+    }
+
+    @Test
+    public void testBatchClosesWhenItsServiceStarts() throws Exception {
+        RecordingDeployerService deployer = installDeployer();
+
+        scheduler.scheduleAsync(URI.create("http://localhost/foo"), handler()).get();
+        container.awaitStability();
+        scheduler.scheduleAsync(URI.create("http://localhost/bar"), handler()).get();
+        container.awaitStability();
+
+        Assert.assertNotNull(container.getService(batchName(1)));
+        Assert.assertNotNull(container.getService(batchName(2)));
+        Assert.assertEquals(2, deployer.deployed.size());
+    }
+
+    @Test
+    public void testUnscheduleUndeploys() throws Exception {
+        RecordingDeployerService deployer = installDeployer();
+
+        URI uri = URI.create("http://localhost/foo");
+        scheduler.scheduleAsync(uri, handler()).get();
+        container.awaitStability();
+        scheduler.unschedule(uri);
+        container.awaitStability();
+
+        Assert.assertEquals(1, deployer.undeployed.size());
+        Assert.assertNull(container.getService(batchName(1)));
+    }
+
+    @Test
+    public void testUnscheduleDuringDeploymentUndeploys() throws Exception {
+        URI uri = URI.create("http://localhost/foo");
+        CompletableFuture<Void> future = scheduler.scheduleAsync(uri, handler());
+
+        RecordingDeployerService deployer = new RecordingDeployerService();
+        deployer.deployHook = deployedUri -> scheduler.unschedule(deployedUri);
+        container.addService(CamelEndpointDeployerService.deployerServiceName(DEPLOYMENT_NAME), deployer).install();
+        container.awaitStability();
+
+        Assert.assertEquals(1, deployer.deployed.size());
+        Assert.assertEquals(1, deployer.undeployed.size());
+        Assert.assertTrue(future.isCancelled());
+        Assert.assertNull(container.getService(batchName(1)));
+    }
+
+    @Test
+    public void testScheduleWaitsForDeployment() throws Exception {
+        RecordingDeployerService deployer = installDeployer();
+
+        scheduler.schedule(URI.create("http://localhost/foo"), handler());
+        Assert.assertEquals(1, deployer.deployed.size());
+    }
+
+    @Test
+    public void testScheduleRethrowsDeploymentFailure() throws Exception {
+        installDeployer();
+
+        URI uri = URI.create("http://localhost/fail");
+        try {
+            scheduler.schedule(uri, handler());
+            Assert.fail("IllegalStateException expected");
+        } catch (IllegalStateException ex) {
+            Assert.assertTrue(ex.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    private RecordingDeployerService installDeployer() throws InterruptedException {
+        RecordingDeployerService deployer = new RecordingDeployerService();
+        container.addService(CamelEndpointDeployerService.deployerServiceName(DEPLOYMENT_NAME), deployer).install();
+        container.awaitStability();
+        return deployer;
+    }
+
+    private static ServiceName batchName(int index) {
+        return CamelEndpointDeploymentSchedulerService.deploymentSchedulerServiceName(DEPLOYMENT_NAME).append("batch", String.valueOf(index));
+    }
+
+    private static HttpHandler handler() {
+        return exchange -> {};
+    }
+
+    private static DeploymentUnit deploymentUnit() {
+        return (DeploymentUnit) Proxy.newProxyInstance(DeploymentUnit.class.getClassLoader(), new Class<?>[] { DeploymentUnit.class }, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getServiceName":
+                    return DEPLOYMENT_NAME;
+                case "getName":
+                    return "test.war";
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    static final class RecordingDeployerService extends CamelEndpointDeployerService {
+        private final List<URI> deployed = new CopyOnWriteArrayList<>();
+        private final List<URI> undeployed = new CopyOnWriteArrayList<>();
+        private volatile Consumer<URI> deployHook = uri -> {};
+
+        @Override
+        public void deploy(URI uri, HttpHandler routingHandler) {
+            if (uri.getPath().equals("/fail")) {
+                throw new IllegalArgumentException("Cannot deploy " + uri);
+            }
+            deployed.add(uri);
+            deployHook.accept(uri);
+        }
+
+        @Override
+        public void undeploy(URI uri) {
+            undeployed.add(uri);
+        }
+
+        @Override
+        public void stop(StopContext context) {
+        }
+    }
+}
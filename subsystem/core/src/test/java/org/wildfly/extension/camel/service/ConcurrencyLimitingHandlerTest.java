@@ -0,0 +1,126 @@
+/*
+ * #%L
+ * Wildfly Camel :: Subsystem
+ * %%
+ * Copyright (C) 2013 - 2020 RedHat
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wildfly.extension.camel.service;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.undertow.Undertow;
+import io.undertow.server.handlers.BlockingHandler;
+
+public class ConcurrencyLimitingHandlerTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private ConcurrencyLimitingHandler limiter;
+    private Undertow server;
+    private int port;
+
+    @Before
+    public void before() {
+        limiter = new ConcurrencyLimitingHandler(new BlockingHandler(exchange -> {
+            release.await(10, TimeUnit.SECONDS);
+            exchange.getResponseSender().send("ok");
+        }), 1, 1, 5);
+        server = Undertow.builder().addHttpListener(0, "localhost").setHandler(limiter).build();
+        server.start();
+        port = ((InetSocketAddress) server.getListenerInfo().get(0).getAddress()).getPort();
+    }
+
+    @After
+    public void after() {
+        release.countDown();
+        executor.shutdownNow();
+        server.stop();
+    }
+
+    @Test
+    public void testAdmitQueueRejectAndDrain() throws Exception {
+        Future<Response> admitted = executor.submit(() -> get());
+        awaitCondition(() -> limiter.getActiveRequests() == 1);
+
+        Future<Response> queued = executor.submit(() -> get());
+        awaitCondition(() -> limiter.getQueuedRequests() == 1);
+
+        Response rejected = get();
+        Assert.assertEquals(503, rejected.status);
+        Assert.assertEquals("5", rejected.retryAfter);
+        Assert.assertEquals(1, limiter.getActiveRequests());
+        Assert.assertEquals(1, limiter.getQueuedRequests());
+
+        release.countDown();
+        Assert.assertEquals(200, admitted.get(10, TimeUnit.SECONDS).status);
+        Assert.assertEquals(200, queued.get(10, TimeUnit.SECONDS).status);
+        Assert.assertEquals("ok", queued.get().body);
+
+        awaitCondition(() -> limiter.getActiveRequests() == 0);
+        Assert.assertEquals(0, limiter.getQueuedRequests());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeRetryAfter() {
+        new ConcurrencyLimitingHandler(exchange -> {}, 1, 0, -1);
+    }
+
+    private Response get() throws Exception {
+        HttpURLConnection con = (HttpURLConnection) new URL("http://localhost:" + port + "/").openConnection();
+        try {
+            Response response = new Response();
+            response.status = con.getResponseCode();
+            response.retryAfter = con.getHeaderField("Retry-After");
+            if (response.status == 200) {
+                try (InputStream in = con.getInputStream()) {
+                    response.body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                }
+            }
+            return response;
+        } finally {
+            con.disconnect();
+        }
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue("Condition not met in time", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    static final class Response {
+        int status;
+        String retryAfter;
+        String body;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * #%L
+ * Wildfly Camel :: Subsystem
+ * %%
+ * Copyright (C) 2013 - 2020 RedHat
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wildfly.extension.camel.service;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.extension.camel.service.CamelEndpointDeployerService.DelegatingEndpointHttpHandler;
+import org.wildfly.extension.camel.service.CamelEndpointDeployerService.SharedEndpointRouter;
+
+import io.undertow.Undertow;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.handlers.PathHandler;
+import io.undertow.servlet.Servlets;
+import io.undertow.servlet.api.DeploymentInfo;
+import io.undertow.servlet.api.DeploymentManager;
+
+public class SharedEndpointRouterTest {
+
+    private DeploymentManager manager;
+    private SharedEndpointRouter router;
+    private PathHandler host;
+    private Undertow server;
+    private int port;
+
+    @Before
+    public void before() throws Exception {
+        DeploymentInfo mainDeploymentInfo = Servlets.deployment()
+                .setClassLoader(getClass().getClassLoader())
+                .setContextPath("/main")
+                .setDeploymentName("main.war");
+        manager = Servlets.defaultContainer().addDeployment(CamelEndpointDeployerService.sharedDeploymentInfo(mainDeploymentInfo));
+        manager.deploy();
+        router = new SharedEndpointRouter(manager.start());
+
+        host = new PathHandler();
+        server = Undertow.builder().addHttpListener(0, "localhost").setHandler(host).build();
+        server.start();
+        port = ((InetSocketAddress) server.getListenerInfo().get(0).getAddress()).getPort();
+    }
+
+    @After
+    public void after() throws Exception {
+        server.stop();
+        manager.stop();
+        manager.undeploy();
+    }
+
+    @Test
+    public void testContextRelativePaths() throws Exception {
+        register("http://localhost/foo", "foo");
+        register("http://localhost/bar/baz/", "bar");
+
+        Assert.assertEquals("foo /hello /foo", get("/foo/hello"));
+        Assert.assertEquals("bar /hello/world /bar/baz", get("/bar/baz/hello/world"));
+        Assert.assertEquals("foo / /foo", get("/foo/"));
+    }
+
+    @Test
+    public void testUnregisteredEndpoint() throws Exception {
+        register("http://localhost/foo", "foo");
+        Assert.assertTrue(router.remove(SharedEndpointRouter.endpointPath(new URI("http://localhost/foo"))));
+
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + "/foo/hello").openConnection();
+        Assert.assertEquals(404, connection.getResponseCode());
+    }
+
+    private void register(String uri, String name) throws Exception {
+        String path = SharedEndpointRouter.endpointPath(new URI(uri));
+        HttpHandler routingHandler = exchange -> exchange.getResponseSender()
+                .send(name + " " + exchange.getRelativePath() + " " + exchange.getResolvedPath());
+        router.add(path, new DelegatingEndpointHttpHandler(routingHandler), routingHandler);
+        host.addPrefixPath(path, router);
+    }
+
+    private String get(String path) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+        Assert.assertEquals(200, connection.getResponseCode());
+        try (InputStream in = connection.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -1,9 +1,18 @@
 package org.wildfly.extension.camel.service;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
 import org.junit.Assert;
 import org.junit.Test;
+import org.wildfly.extension.camel.service.CamelEndpointDeployerService.CompiledConstraints;
 import org.wildfly.extension.camel.service.CamelEndpointDeployerService.UrlPattern;
 
+import io.undertow.servlet.api.DeploymentInfo;
+import io.undertow.servlet.api.SecurityConstraint;
+import io.undertow.servlet.api.WebResourceCollection;
+
 public class UrlPatternTest {
 
     static void assertPath(String urlPattern, String path, String expectedRelativePattern) {
@@ -26,4 +35,26 @@ public class UrlPatternTest {
         assertPath("///foo/*", "///foo", "/*");
         assertPath("///foo/*", "///foo/bar", "");
     }
+
+    static List<String> candidates(CompiledConstraints constraints, String path) {
+        return constraints.candidates(UrlPattern.tokenize(path)).stream()
+                .map(candidate -> candidate.toString())
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testIndexedCandidates() {
+        DeploymentInfo info = new DeploymentInfo().setContextPath("/app");
+        info.addSecurityConstraint(new SecurityConstraint()
+                .addWebResourceCollection(new WebResourceCollection().addUrlPatterns("/foo/*", "/*/bar")));
+        info.addSecurityConstraint(new SecurityConstraint()
+                .addWebResourceCollection(new WebResourceCollection().addUrlPatterns("/baz", "/foo/bar", "///ext/*")));
+        CompiledConstraints constraints = new CompiledConstraints(info);
+
+        Assert.assertEquals(Arrays.asList("/foo/*", "/*/bar", "/foo/bar"), candidates(constraints, "/foo/bar"));
+        Assert.assertEquals(Arrays.asList("/*/bar", "/baz"), candidates(constraints, "/baz"));
+        Assert.assertEquals(Arrays.asList("/*/bar"), candidates(constraints, "/other"));
+        Assert.assertEquals(Arrays.asList("/*/bar", "///ext/*"), candidates(constraints, "///ext/foo"));
+        Assert.assertEquals(5, candidates(constraints, "/").size());
+    }
 }
@@ -26,10 +26,9 @@ import java.net.InetAddress;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CancellationException;
 import java.util.stream.Collectors;
 
 import org.apache.camel.component.undertow.HttpHandlerRegistrationInfo;
@@ -49,24 +48,22 @@ import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
 import org.jboss.msc.service.StopContext;
 import org.jboss.msc.value.InjectedValue;
-import org.wildfly.camel.utils.IllegalStateAssertion;
 import org.wildfly.extension.camel.CamelConstants;
 import org.wildfly.extension.camel.parser.SubsystemState.RuntimeState;
-import org.wildfly.extension.camel.service.CamelEndpointDeployerService.CamelEndpointDeployerHandler;
+import org.wildfly.extension.camel.service.CamelEndpointDeployerService.DispatchingHttpHandler;
 import org.wildfly.extension.camel.service.CamelEndpointDeploymentSchedulerService;
+import org.wildfly.extension.camel.service.ConcurrencyLimitingHandler;
 import org.wildfly.extension.undertow.Host;
 import org.wildfly.extension.undertow.UndertowEventListener;
 import org.wildfly.extension.undertow.UndertowListener;
 import org.wildfly.extension.undertow.UndertowService;
 
-import io.undertow.Handlers;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
-import io.undertow.server.RoutingHandler;
+import io.undertow.server.handlers.ResponseCodeHandler;
 import io.undertow.servlet.api.Deployment;
-import io.undertow.servlet.api.DeploymentInfo;
-import io.undertow.util.Methods;
 import io.undertow.util.PathTemplate;
+import io.undertow.util.PathTemplateMatch;
 import io.undertow.util.URLUtils;
 
 /**
@@ -84,6 +81,7 @@ public class CamelUndertowHostService extends AbstractService<UndertowHost> {
     private final InjectedValue<Host> injectedDefaultHost = new InjectedValue<>();
 
     private final RuntimeState runtimeState;
+    private final ContextPathRegistry contextPathRegistry = new ContextPathRegistry();
     private UndertowEventListener eventListener;
     private UndertowHost undertowHost;
 
@@ -107,7 +105,7 @@ public class CamelUndertowHostService extends AbstractService<UndertowHost> {
         runtimeState.setHttpHost(getConnectionURL());
         eventListener = new CamelUndertowEventListener();
         injectedUndertowService.getValue().registerListener(eventListener);
-        undertowHost = new WildFlyUndertowHost(injectedDefaultHost.getValue());
+        undertowHost = new WildFlyUndertowHost(injectedDefaultHost.getValue(), contextPathRegistry);
     }
 
     private URL getConnectionURL() throws StartException {
@@ -138,11 +136,12 @@ public class CamelUndertowHostService extends AbstractService<UndertowHost> {
     static class WildFlyUndertowHost implements UndertowHost {
         private static final String REST_PATH_PLACEHOLDER = "{";
         private static final String DEFAULT_METHODS = "GET,HEAD,POST,PUT,DELETE,TRACE,OPTIONS,CONNECT,PATCH";
-        private final Map<String, DelegatingRoutingHandler> handlers = new ConcurrentHashMap<>();
         private final Host defaultHost;
+        private final ContextPathRegistry contextPathRegistry;
 
-        WildFlyUndertowHost(Host host) {
+        WildFlyUndertowHost(Host host, ContextPathRegistry contextPathRegistry) {
             this.defaultHost = host;
+            this.contextPathRegistry = contextPathRegistry;
         }
 
         @Override
@@ -177,26 +176,7 @@ public class CamelUndertowHostService extends AbstractService<UndertowHost> {
         }
 
         private void validateEndpointContextPath(URI httpURI) {
-            String undertowEndpointPath = getContextPath(httpURI);
-            Set<Deployment> deployments = defaultHost.getDeployments();
-            for (Deployment deployment : deployments) {
-                DeploymentInfo depInfo = deployment.getDeploymentInfo();
-                String contextPath = depInfo.getContextPath();
-                if (contextPath.equals(undertowEndpointPath)) {
-                    final HttpHandler handler = deployment.getHandler();
-                    if (handler instanceof CamelEndpointDeployerHandler && ((CamelEndpointDeployerHandler)handler).getRoutingHandler() instanceof DelegatingRoutingHandler) {
-                        final ModuleClassLoader oldCl = ((DelegatingRoutingHandler)((CamelEndpointDeployerHandler)handler).getRoutingHandler()).classLoader;
-                        final ModuleClassLoader tccl = checkTccl();
-                        if (tccl != oldCl) {
-                            // Avoid allowing handlers from distinct apps to handle the same path
-                            throw new IllegalStateException("Cannot add "+ HttpHandler.class.getName() +" for path " + contextPath + " defined in " + tccl.getName() + " because that path is already served by "+ oldCl.getName());
-                        }
-                    } else {
-                        // Another application already serves this path
-                        throw new IllegalStateException("Cannot overwrite context path " + contextPath + " owned by " + depInfo.getDeploymentName());
-                    }
-                }
-            }
+            contextPathRegistry.assertOwnership(getContextPath(httpURI), checkTccl());
         }
 
         @Override
@@ -211,25 +191,43 @@ public class CamelUndertowHostService extends AbstractService<UndertowHost> {
             LOGGER.debug("Using relative path {}", relativePath);
 
             boolean registerRoutingHandler = false;
-            DelegatingRoutingHandler routingHandler = handlers.get(contextPath);
+            DelegatingRoutingHandler routingHandler = getRoutingHandler(contextPath);
             if (routingHandler == null) {
-                routingHandler = new DelegatingRoutingHandler(checkTccl());
-                registerRoutingHandler = true;
+                final ModuleClassLoader classLoader = checkTccl();
+                final DelegatingRoutingHandler newRoutingHandler = new DelegatingRoutingHandler(classLoader);
+                routingHandler = (DelegatingRoutingHandler) contextPathRegistry.registerHandler(contextPath, classLoader, newRoutingHandler);
+                registerRoutingHandler = routingHandler == newRoutingHandler;
                 LOGGER.debug("Created new DelegatingRoutingHandler {}", routingHandler);
             }
 
             String methods = reginfo.getMethodRestrict() == null ? DEFAULT_METHODS : reginfo.getMethodRestrict();
             LOGGER.debug("Using methods {}", methods);
 
+            HttpHandler routedHandler = limit(consumer, handler, routingHandler.classLoader);
             HttpHandler result = null;
             for (String method : methods.split(",")) {
                 LOGGER.debug("Adding {}: {} for handler {}", method, relativePath, handler);
-                result = routingHandler.add(method, relativePath, handler);
+                result = routingHandler.add(method, relativePath, routedHandler);
+            }
+            if (result == routedHandler) {
+                result = handler;
             }
 
             if (registerRoutingHandler) {
-                lookupDeploymentSchedulerService(routingHandler.classLoader).schedule(httpURI.resolve(contextPath), routingHandler);
-                handlers.put(contextPath, routingHandler);
+                final DelegatingRoutingHandler registeredHandler = routingHandler;
+                try {
+                    // Exposed along with the other endpoints of the deployment; failures are logged by the scheduler
+                    lookupDeploymentSchedulerService(registeredHandler.classLoader)
+                            .scheduleAsync(httpURI.resolve(contextPath), registeredHandler)
+                            .whenComplete((ignored, ex) -> {
+                                if (ex != null && !(ex instanceof CancellationException)) {
+                                    contextPathRegistry.unregisterHandler(contextPath, registeredHandler);
+                                }
+                            });
+                } catch (RuntimeException ex) {
+                    contextPathRegistry.unregisterHandler(contextPath, registeredHandler);
+                    throw ex;
+                }
             }
 
             return result;
@@ -242,7 +240,7 @@ public class CamelUndertowHostService extends AbstractService<UndertowHost> {
             String contextPath = getContextPath(httpURI);
             LOGGER.debug("unregisterHandler {}", contextPath);
 
-            DelegatingRoutingHandler routingHandler = handlers.get(contextPath);
+            DelegatingRoutingHandler routingHandler = getRoutingHandler(contextPath);
             if (routingHandler != null) {
                 String methods = reginfo.getMethodRestrict() == null ? DEFAULT_METHODS : reginfo.getMethodRestrict();
                 boolean routingHandlerEmpty = false;
@@ -255,12 +253,33 @@ public class CamelUndertowHostService extends AbstractService<UndertowHost> {
                 // No paths remain registered so remove the base handler
                 if (routingHandlerEmpty) {
                     lookupDeploymentSchedulerService(routingHandler.classLoader).unschedule(httpURI.resolve(contextPath));
-                    handlers.remove(contextPath);
+                    contextPathRegistry.unregisterHandler(contextPath, routingHandler);
                     LOGGER.debug("Unregistered root handler from {}", contextPath);
                 }
             }
         }
 
+        /**
+         * @return the given handler wrapped in a {@link ConcurrencyLimitingHandler} if the consumer's endpoint
+         *         defines maxConcurrentRequests; otherwise the given handler
+         */
+        private static HttpHandler limit(UndertowConsumer consumer, HttpHandler handler, ClassLoader classLoader) {
+            if (handler == consumer && consumer.getEndpoint() instanceof WildFlyUndertowComponent.WildFlyUndertowEndpoint) {
+                final WildFlyUndertowComponent.WildFlyUndertowEndpoint endpoint = (WildFlyUndertowComponent.WildFlyUndertowEndpoint) consumer.getEndpoint();
+                if (endpoint.getMaxConcurrentRequests() > 0) {
+                    // Queued requests are resumed outside of the DelegatingRoutingHandler that sets the TCCL
+                    final HttpHandler next = new ClassLoaderHandler(handler, classLoader);
+                    return new ConcurrencyLimitingHandler(next, endpoint.getMaxConcurrentRequests(), endpoint.getRequestQueueSize(), endpoint.getRetryAfter());
+                }
+            }
+            return handler;
+        }
+
+        private DelegatingRoutingHandler getRoutingHandler(String contextPath) {
+            final HttpHandler handler = contextPathRegistry.getHandler(contextPath);
+            return handler instanceof DelegatingRoutingHandler ? (DelegatingRoutingHandler) handler : null;
+        }
+
         private String getBasePath(URI httpURI) {
             String path = httpURI.getPath();
             if (path.contains(REST_PATH_PLACEHOLDER)) {
@@ -307,10 +326,46 @@ public class CamelUndertowHostService extends AbstractService<UndertowHost> {
         }
     }
 
-    static class DelegatingRoutingHandler implements HttpHandler {
+    /**
+     * Invokes the next handler with the given class loader as TCCL.
+     */
+    static final class ClassLoaderHandler implements HttpHandler {
+
+        private final HttpHandler next;
+        private final ClassLoader classLoader;
+
+        ClassLoaderHandler(HttpHandler next, ClassLoader classLoader) {
+            this.next = next;
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        public void handleRequest(HttpServerExchange exchange) throws Exception {
+            final ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+            if (tccl == classLoader) {
+                next.handleRequest(exchange);
+            } else {
+                Thread.currentThread().setContextClassLoader(classLoader);
+                try {
+                    next.handleRequest(exchange);
+                } finally {
+                    Thread.currentThread().setContextClassLoader(tccl);
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return next.toString();
+        }
+    }
+
+    static class DelegatingRoutingHandler implements DispatchingHttpHandler {
 
-        private final Map<MethodPathKey, MethodPathValue> paths = new ConcurrentHashMap<>();
-        private final RoutingHandler delegate = Handlers.routing();
+        /** The registered paths; always accessed under {@link #paths} lock */
+        private final Map<MethodPathKey, MethodPathValue> paths = new LinkedHashMap<>();
+        /** An immutable index of {@link #paths} that is rebuilt whenever {@link #paths} change */
+        private volatile PathTrie trie = PathTrie.EMPTY;
         /** The class loader of the deployment in which the path served by this {@link DelegatingRoutingHandler} was defined */
         private final ModuleClassLoader classLoader;
 
@@ -324,12 +379,11 @@ public class CamelUndertowHostService extends AbstractService<UndertowHost> {
             synchronized (paths) {
                 MethodPathValue value = paths.computeIfAbsent(key, k -> new MethodPathValue());
                 result = value.addRef(handler, method, path);
-            }
-
-            if (handler == result) {
-                // register only the very first handler per path and method
-                LOGGER.debug("Registered paths {}", this.toString());
-                delegate.add(method, path, handler);
+                if (handler == result) {
+                    // register only the very first handler per path and method
+                    rebuildTrie();
+                    LOGGER.debug("Registered paths {}", this.toString());
+                }
             }
             return result;
         }
@@ -343,28 +397,90 @@ public class CamelUndertowHostService extends AbstractService<UndertowHost> {
                     value.removeRef();
                     if (value.refCount <= 0) {
                         paths.remove(key);
+                        rebuildTrie();
                     }
                 }
                 result = paths.isEmpty();
             }
-            delegate.remove(Methods.fromString(method), path);
             return result;
         }
 
+        /**
+         * Always call under {@link #paths} lock.
+         */
+        private void rebuildTrie() {
+            PathTrie.Builder builder = new PathTrie.Builder();
+            for (Map.Entry<MethodPathKey, MethodPathValue> entry : paths.entrySet()) {
+                builder.add(entry.getKey().method, entry.getKey().path, entry.getValue().handler);
+            }
+            trie = builder.build();
+        }
+
         @Override
         public void handleRequest(HttpServerExchange exchange) throws Exception {
             if (exchange.getRelativePath().isEmpty()) {
                 exchange.setRelativePath("/");
             }
-            delegate.handleRequest(exchange);
+            final String path = exchange.getRelativePath();
+            final PathTrie current = trie;
+            final PathTrie.Route route = current.match(path, exchange.getRequestMethod());
+            if (route == null) {
+                // Like the RoutingHandler this replaces, a method mismatch is not told apart from an unknown path
+                ResponseCodeHandler.HANDLE_404.handleRequest(exchange);
+                return;
+            }
+            final HttpHandler handler = route.getHandler();
+            if (!isIoThreadRequest(handler, exchange)) {
+                if (exchange.isInIoThread()) {
+                    exchange.dispatch(this);
+                    return;
+                }
+                if (!exchange.isBlocking()) {
+                    exchange.startBlocking();
+                }
+            }
+            final PathTemplateMatch match = route.toPathTemplateMatch(path);
+            exchange.putAttachment(PathTemplateMatch.ATTACHMENT_KEY, match);
+            for (Map.Entry<String, String> param : match.getParameters().entrySet()) {
+                exchange.addQueryParam(param.getKey(), param.getValue());
+            }
+            final ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+            if (tccl == classLoader) {
+                handler.handleRequest(exchange);
+            } else {
+                Thread.currentThread().setContextClassLoader(classLoader);
+                try {
+                    handler.handleRequest(exchange);
+                } finally {
+                    Thread.currentThread().setContextClassLoader(tccl);
+                }
+            }
+        }
+
+        /**
+         * @return {@code true} if the given handler may serve the given request on the IO thread; {@code false} if the
+         *         request must be dispatched to a worker thread first
+         */
+        private static boolean isIoThreadRequest(HttpHandler handler, HttpServerExchange exchange) {
+            if (handler instanceof ConcurrencyLimitingHandler) {
+                handler = ((ConcurrencyLimitingHandler) handler).getNext();
+            }
+            if (handler instanceof ClassLoaderHandler) {
+                handler = ((ClassLoaderHandler) handler).next;
+            }
+            return handler instanceof WildFlyUndertowComponent.WildFlyUndertowUndertowConsumer
+                    && ((WildFlyUndertowComponent.WildFlyUndertowUndertowConsumer) handler).isIoThreadRequest(exchange);
         }
 
         @Override
         public String toString() {
-            String formattedPaths = paths.entrySet()
-                .stream()
-                .map(entry -> entry.toString())
-                .collect(Collectors.joining(", "));
+            String formattedPaths;
+            synchronized (paths) {
+                formattedPaths = paths.entrySet()
+                    .stream()
+                    .map(entry -> entry.toString())
+                    .collect(Collectors.joining(", "));
+            }
             return String.format("DelegatingRoutingHandler [%s]", formattedPaths);
         }
     }
@@ -446,12 +562,13 @@ public class CamelUndertowHostService extends AbstractService<UndertowHost> {
 
     class CamelUndertowEventListener implements UndertowEventListener {
 
-        private final ConcurrentMap<String, Boolean> existingContextPaths = new ConcurrentHashMap<>();
-
         @Override
         public void onDeploymentStart(Deployment dep, Host host) {
             // Ensure that a deployment HttpHandler cannot overwrite handlers created by camel-undertow
-            checkForOverlappingContextPath(dep);
+            // camel-undertow handlers only live on the default host, so other hosts may reuse their paths
+            if (isDefaultHost(host)) {
+                contextPathRegistry.registerDeployment(dep);
+            }
 
             runtimeState.addHttpContext(dep.getServletContext().getContextPath());
         }
@@ -459,21 +576,13 @@ public class CamelUndertowHostService extends AbstractService<UndertowHost> {
         @Override
         public void onDeploymentStop(Deployment dep, Host host) {
             runtimeState.removeHttpContext(dep.getServletContext().getContextPath());
-            final DeploymentInfo depInfo = dep.getDeploymentInfo();
-            if (dep.getHandler() != null) {
-                final String contextPath = depInfo.getContextPath();
-                existingContextPaths.remove(contextPath);
+            if (isDefaultHost(host)) {
+                contextPathRegistry.unregisterDeployment(dep);
             }
         }
 
-        private void checkForOverlappingContextPath(Deployment dep) {
-            final DeploymentInfo depInfo = dep.getDeploymentInfo();
-            if (dep.getHandler() != null) {
-                final String contextPath = depInfo.getContextPath();
-                final Boolean exists = existingContextPaths.putIfAbsent(contextPath, Boolean.TRUE);
-                IllegalStateAssertion.assertFalse(Boolean.TRUE == exists,
-                        "Cannot overwrite context path " + contextPath + " owned by camel-undertow" + contextPath);
-            }
+        private boolean isDefaultHost(Host host) {
+            return host == injectedDefaultHost.getValue();
         }
     }
 }
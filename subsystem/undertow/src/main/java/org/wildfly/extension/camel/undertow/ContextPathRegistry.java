@@ -0,0 +1,146 @@
+/*
+ * #%L
+ * Wildfly Camel :: Subsystem
+ * %%
+ * Copyright (C) 2013 - 2020 RedHat
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wildfly.extension.camel.undertow;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.jboss.modules.ModuleClassLoader;
+import org.wildfly.extension.camel.service.CamelEndpointDeployerService.CamelEndpointDeployerHandler;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.servlet.api.Deployment;
+
+/**
+ * An index of the context paths served on the default host by their owner. The owner of a context path is either a
+ * camel-undertow {@link HttpHandler} defined in a deployment's class loader or a {@link Deployment} started on the
+ * host.
+ * <p>
+ * Both the camel-undertow host and the undertow event listener consult and update this registry, so that ownership
+ * checks do not need to iterate over the host's deployments.
+ *
+ * @since 16-Oct-2020
+ */
+final class ContextPathRegistry {
+
+    private final ConcurrentMap<String, Owner> owners = new ConcurrentHashMap<>();
+
+    /**
+     * @return the camel-undertow handler serving the given context path or {@code null}
+     */
+    HttpHandler getHandler(String contextPath) {
+        Owner owner = owners.get(contextPath);
+        return owner != null && owner.deployment == null ? owner.handler : null;
+    }
+
+    /**
+     * Asserts that a camel-undertow handler defined in the given class loader may serve the given context path.
+     *
+     * @throws IllegalStateException if the context path is owned by another deployment
+     */
+    void assertOwnership(String contextPath, ModuleClassLoader classLoader) {
+        Owner owner = owners.get(contextPath);
+        if (owner != null) {
+            if (owner.classLoader == null) {
+                // Another application already serves this path
+                throw new IllegalStateException("Cannot overwrite context path " + contextPath + " owned by " + owner.name);
+            } else if (owner.classLoader != classLoader) {
+                // Avoid allowing handlers from distinct apps to handle the same path
+                throw new IllegalStateException("Cannot add " + HttpHandler.class.getName() + " for path " + contextPath + " defined in "
+                        + classLoader.getName() + " because that path is already served by " + owner.classLoader.getName());
+            }
+        }
+    }
+
+    /**
+     * Registers a camel-undertow handler for the given context path.
+     *
+     * @return the handler already registered by the given class loader for the given context path or the given handler
+     * @throws IllegalStateException if the context path is owned by another deployment
+     */
+    HttpHandler registerHandler(String contextPath, ModuleClassLoader classLoader, HttpHandler handler) {
+        Owner owner = owners.computeIfAbsent(contextPath, k -> new Owner(classLoader.getName(), classLoader, handler, null));
+        if (owner.handler != handler) {
+            assertOwnership(contextPath, classLoader);
+        }
+        return owner.handler;
+    }
+
+    /**
+     * Removes the given camel-undertow handler from the given context path.
+     */
+    void unregisterHandler(String contextPath, HttpHandler handler) {
+        owners.computeIfPresent(contextPath, (k, owner) -> owner.handler == handler && owner.deployment == null ? null : owner);
+    }
+
+    /**
+     * Registers the context path of the given started {@link Deployment}. A deployment of a camel-undertow handler
+     * that already owns the context path is accepted.
+     *
+     * @throws IllegalStateException if the context path is owned by another handler or deployment
+     */
+    void registerDeployment(Deployment dep) {
+        if (dep.getHandler() != null) {
+            final String contextPath = dep.getDeploymentInfo().getContextPath();
+            final HttpHandler handler = getRoutingHandler(dep);
+            final Owner owner = owners.computeIfAbsent(contextPath, k -> new Owner(dep.getDeploymentInfo().getDeploymentName(), null, handler, dep));
+            if (owner.deployment != dep && owner.handler != handler) {
+                throw new IllegalStateException("Cannot overwrite context path " + contextPath + " owned by " + owner.name);
+            }
+        }
+    }
+
+    /**
+     * Removes the context path of the given stopped {@link Deployment} unless it is owned by somebody else.
+     */
+    void unregisterDeployment(Deployment dep) {
+        if (dep.getHandler() != null) {
+            final String contextPath = dep.getDeploymentInfo().getContextPath();
+            owners.computeIfPresent(contextPath, (k, owner) -> owner.deployment == dep ? null : owner);
+        }
+    }
+
+    private static HttpHandler getRoutingHandler(Deployment dep) {
+        final HttpHandler handler = dep.getHandler();
+        return handler instanceof CamelEndpointDeployerHandler ? ((CamelEndpointDeployerHandler) handler).getRoutingHandler() : handler;
+    }
+
+    private static final class Owner {
+        /** The name of the owning deployment */
+        private final String name;
+        /** The class loader of a camel-undertow handler; {@code null} for other owners */
+        private final ModuleClassLoader classLoader;
+        private final HttpHandler handler;
+        /** The started {@link Deployment}; {@code null} for camel-undertow handlers */
+        private final Deployment deployment;
+
+        Owner(String name, ModuleClassLoader classLoader, HttpHandler handler, Deployment deployment) {
+            this.name = name;
+            this.classLoader = classLoader;
+            this.handler = handler;
+            this.deployment = deployment;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
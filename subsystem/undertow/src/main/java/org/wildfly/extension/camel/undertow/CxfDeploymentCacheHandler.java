@@ -0,0 +1,193 @@
+/*
+ * #%L
+ * Wildfly Camel :: Subsystem
+ * %%
+ * Copyright (C) 2013 - 2020 RedHat
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wildfly.extension.camel.undertow;
+
+import static org.wildfly.extension.camel.CamelLogger.LOGGER;
+
+import java.lang.reflect.Field;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.bind.JAXBException;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Endpoint;
+import org.apache.camel.component.cxf.CxfEndpoint;
+import org.apache.camel.component.cxf.CxfEndpointConfigurer;
+import org.apache.camel.component.cxf.DataFormat;
+import org.apache.camel.spi.LifecycleStrategy;
+import org.apache.camel.support.LifecycleStrategySupport;
+import org.apache.cxf.common.jaxb.JAXBContextCache.CachedContextAndSchemas;
+import org.apache.cxf.jaxb.JAXBDataBinding;
+import org.wildfly.extension.camel.ContextCreateHandler;
+
+/**
+ * A {@link ContextCreateHandler} that lets the POJO {@link CxfEndpoint}s of a deployment share their JAXB contexts
+ * through a {@link JAXBContextCache}. The cache of a deployment is dropped once the last {@link CamelContext} of the
+ * deployment stops.
+ * <p>
+ * Parsed WSDL definitions are not cached here: the endpoints of a deployment share the deployment's
+ * {@link org.apache.cxf.Bus}, whose {@link org.apache.cxf.wsdl.WSDLManager} caches them by location.
+ *
+ * @since 16-Oct-2020
+ */
+public final class CxfDeploymentCacheHandler implements ContextCreateHandler {
+
+    /** The cache of each deployment class loader */
+    private final ConcurrentMap<ClassLoader, DeploymentCache> caches = new ConcurrentHashMap<>();
+    private final LifecycleStrategy endpointStrategy = new CxfDeploymentCacheEndpointStrategy();
+
+    @Override
+    public void setup(CamelContext camelctx) {
+        camelctx.addLifecycleStrategy(endpointStrategy);
+    }
+
+    /**
+     * @return the JAXB context cache of the deployment with the given class loader or {@code null} if none of its
+     *         running contexts has a CXF endpoint
+     */
+    public JAXBContextCache getJAXBContextCache(ClassLoader classLoader) {
+        final DeploymentCache cache = caches.get(classLoader);
+        return cache != null ? cache.jaxbContextCache : null;
+    }
+
+    class CxfDeploymentCacheEndpointStrategy extends LifecycleStrategySupport {
+
+        @Override
+        public void onEndpointAdd(Endpoint endpoint) {
+            if (endpoint instanceof CxfEndpoint) {
+                final CxfEndpoint cxfEndpoint = (CxfEndpoint) endpoint;
+                final CamelContext camelctx = endpoint.getCamelContext();
+                final ClassLoader classLoader = camelctx != null ? camelctx.getApplicationContextClassLoader() : null;
+                if (classLoader == null) {
+                    return;
+                }
+                final DeploymentCache cache = caches.compute(classLoader, (cl, existing) -> {
+                    final DeploymentCache result = existing != null ? existing : new DeploymentCache();
+                    result.contexts.add(camelctx);
+                    return result;
+                });
+                if (cxfEndpoint.getDataFormat() == DataFormat.POJO && !hasConfiguredDataBinding(cxfEndpoint)) {
+                    cxfEndpoint.setDataBinding(new CachingJAXBDataBinding(cache.jaxbContextCache));
+                }
+            }
+        }
+
+        /**
+         * @return true if the user may have configured a data binding for the given endpoint, either directly, through
+         *         the {@link org.apache.cxf.annotations.DataBinding} annotation of the service class or through a
+         *         {@link CxfEndpointConfigurer} that may set one on the factory bean
+         */
+        private boolean hasConfiguredDataBinding(CxfEndpoint cxfEndpoint) {
+            if (cxfEndpoint.getDataBinding() != null || cxfEndpoint.getCxfEndpointConfigurer() != null) {
+                return true;
+            }
+            final Class<?> serviceClass = cxfEndpoint.getServiceClass();
+            return serviceClass != null && serviceClass.isAnnotationPresent(org.apache.cxf.annotations.DataBinding.class);
+        }
+
+        @Override
+        public void onContextStop(CamelContext camelctx) {
+            final ClassLoader classLoader = camelctx.getApplicationContextClassLoader();
+            if (classLoader == null) {
+                return;
+            }
+            caches.computeIfPresent(classLoader, (cl, existing) -> {
+                existing.contexts.remove(camelctx);
+                if (existing.contexts.isEmpty()) {
+                    LOGGER.debug("Dropping {} of {}", existing.jaxbContextCache, cl);
+                    return null;
+                }
+                return existing;
+            });
+        }
+    }
+
+    /**
+     * A {@link JAXBDataBinding} that looks up its JAXB context in a {@link JAXBContextCache} before creating it.
+     * <p>
+     * Contexts that depend on generic type references are not keyed by the bound classes alone and are thus always
+     * created by the super implementation, the same way the CXF global cache skips them. {@link JAXBDataBinding}
+     * has no public accessor for its type references, so they are read from its {@code typeRefs} field; the
+     * presence of that field in the CXF version in use is asserted by {@code CxfDeploymentCacheHandlerTest}.
+     */
+    static final class CachingJAXBDataBinding extends JAXBDataBinding {
+        private static final Field TYPE_REFS_FIELD = typeRefsField();
+
+        private final JAXBContextCache cache;
+
+        CachingJAXBDataBinding(JAXBContextCache cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public CachedContextAndSchemas createJAXBContextAndSchemas(Set<Class<?>> classes, String defaultNs) throws JAXBException {
+            if (hasTypeRefs()) {
+                return super.createJAXBContextAndSchemas(classes, defaultNs);
+            }
+            // The super implementation adds to the given classes, so the key is taken from the original set
+            final Set<Class<?>> keyClasses = new HashSet<>(classes);
+            final CachedContextAndSchemas result = cache.getContext(keyClasses, defaultNs, getContextProperties(), getExtraClass(),
+                    () -> super.createJAXBContextAndSchemas(classes, defaultNs));
+            // On a cache hit the super implementation has not run, so add the classes it would have added
+            classes.addAll(result.getClasses());
+            return result;
+        }
+
+        boolean hasTypeRefs() {
+            if (TYPE_REFS_FIELD == null) {
+                return true;
+            }
+            try {
+                final Collection<?> typeRefs = (Collection<?>) TYPE_REFS_FIELD.get(this);
+                return typeRefs != null && !typeRefs.isEmpty();
+            } catch (IllegalAccessException ex) {
+                return true;
+            }
+        }
+
+        /**
+         * @return the accessible {@code typeRefs} field of {@link JAXBDataBinding} or {@code null} if there is none, in
+         *         which case no context is cached
+         */
+        private static Field typeRefsField() {
+            try {
+                final Field field = JAXBDataBinding.class.getDeclaredField("typeRefs");
+                field.setAccessible(true);
+                return field;
+            } catch (NoSuchFieldException | RuntimeException ex) {
+                LOGGER.debug("Cannot access the type references of {}; JAXB contexts are not cached", JAXBDataBinding.class.getName());
+                return null;
+            }
+        }
+    }
+
+    /**
+     * The cache of a deployment together with the {@link CamelContext}s using them.
+     */
+    static final class DeploymentCache {
+        private final JAXBContextCache jaxbContextCache = new JAXBContextCache();
+        /** Only accessed within {@link ConcurrentMap#compute} of {@link CxfDeploymentCacheHandler#caches} */
+        private final Set<CamelContext> contexts = new HashSet<>();
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * #%L
+ * Wildfly Camel :: Subsystem
+ * %%
+ * Copyright (C) 2013 - 2020 RedHat
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wildfly.extension.camel.undertow;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.xml.bind.JAXBException;
+
+import org.apache.cxf.common.jaxb.JAXBContextCache.CachedContextAndSchemas;
+
+/**
+ * The JAXB contexts created for the CXF endpoints of a single deployment, keyed by the bound classes, the default
+ * namespace and the context properties.
+ * <p>
+ * Unlike the CXF global cache, lookups do not synchronize across deployments and cached contexts stay strongly
+ * reachable until the cache is dropped together with the deployment.
+ *
+ * @since 16-Oct-2020
+ */
+public final class JAXBContextCache {
+
+    private final ConcurrentMap<Key, CachedContextAndSchemas> contexts = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    JAXBContextCache() {
+    }
+
+    /**
+     * @return the cached context for the given key or the one created by the given factory
+     */
+    CachedContextAndSchemas getContext(Set<Class<?>> classes, String defaultNs, Map<String, Object> properties, Class<?>[] extraClasses,
+            ContextFactory factory) throws JAXBException {
+        final Key key = new Key(classes, defaultNs, properties, extraClasses);
+        final CachedContextAndSchemas cached = contexts.get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        // Created outside of the map, so that slow context creation does not block other keys
+        final CachedContextAndSchemas created = factory.create();
+        final CachedContextAndSchemas existing = contexts.putIfAbsent(key, created);
+        return existing != null ? existing : created;
+    }
+
+    /**
+     * @return the number of JAXB contexts answered from this cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of JAXB contexts that had to be created
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the share of JAXB contexts answered from this cache
+     */
+    public double getHitRatio() {
+        long hitCount = getHits();
+        long total = hitCount + getMisses();
+        return total > 0 ? (double) hitCount / total : 0.0;
+    }
+
+    /**
+     * @return the share of JAXB contexts that had to be created
+     */
+    public double getMissRatio() {
+        long missCount = getMisses();
+        long total = getHits() + missCount;
+        return total > 0 ? (double) missCount / total : 0.0;
+    }
+
+    /**
+     * @return the number of cached JAXB contexts
+     */
+    public int size() {
+        return contexts.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("JAXBContextCache[size=%d,hits=%d,misses=%d,hitRatio=%.2f]", size(), getHits(), getMisses(), getHitRatio());
+    }
+
+    interface ContextFactory {
+        CachedContextAndSchemas create() throws JAXBException;
+    }
+
+    private static final class Key {
+        private final Set<Class<?>> classes;
+        private final String defaultNs;
+        private final Map<String, Object> properties;
+        private final Set<Class<?>> extraClasses;
+        private final int hashCode;
+
+        Key(Set<Class<?>> classes, String defaultNs, Map<String, Object> properties, Class<?>[] extraClasses) {
+            this.classes = new HashSet<>(classes);
+            this.defaultNs = defaultNs;
+            this.properties = properties != null ? new HashMap<>(properties) : Collections.emptyMap();
+            this.extraClasses = extraClasses != null ? new HashSet<>(Arrays.asList(extraClasses)) : Collections.emptySet();
+            this.hashCode = Objects.hash(this.classes, defaultNs, this.properties, this.extraClasses);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return hashCode == other.hashCode && classes.equals(other.classes) && Objects.equals(defaultNs, other.defaultNs)
+                    && properties.equals(other.properties) && extraClasses.equals(other.extraClasses);
+        }
+    }
+}
@@ -0,0 +1,400 @@
+/*
+ * #%L
+ * Wildfly Camel :: Subsystem
+ * %%
+ * Copyright (C) 2013 - 2020 RedHat
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wildfly.extension.camel.undertow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.util.HttpString;
+import io.undertow.util.Methods;
+import io.undertow.util.PathTemplateMatch;
+
+/**
+ * An immutable index of {@link HttpHandler}s by HTTP method and path. Paths are split into segments, each of which is
+ * either a literal, a <code>{param}</code> template optionally surrounded by a literal prefix and suffix, or a
+ * trailing <code>*</code> denoting a match on the path prefix.
+ * <p>
+ * Literal segments take precedence over templates, which take precedence over prefix matches. Matching does not
+ * allocate; path parameters are extracted only once a {@link Route} has been selected.
+ * <p>
+ * Instances are created via {@link Builder} and never change afterwards, so that they can be swapped in and out
+ * atomically and read without locking.
+ *
+ * @since 16-Oct-2020
+ */
+final class PathTrie {
+
+    static final PathTrie EMPTY = new Builder().build();
+
+    private final Node root;
+
+    private PathTrie(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * @param path the request path, starting with a slash
+     * @param method the request method or {@code null} to accept any method
+     * @return the best matching {@link Route} or {@code null} if there is none
+     */
+    Route match(String path, HttpString method) {
+        return root.match(path, 0, method);
+    }
+
+    /**
+     * A handler registered for a given method and path template.
+     */
+    static final class Route {
+        private final String template;
+        private final HttpHandler handler;
+        private final String[] paramNames;
+        private final int[] paramPrefixLengths;
+        private final int[] paramSuffixLengths;
+        private final boolean hasParams;
+        private final PathTemplateMatch emptyMatch;
+
+        private Route(String template, HttpHandler handler, List<ParamSpec> segments) {
+            this.template = template;
+            this.handler = handler;
+            int size = segments.size();
+            this.paramNames = new String[size];
+            this.paramPrefixLengths = new int[size];
+            this.paramSuffixLengths = new int[size];
+            boolean params = false;
+            for (int i = 0; i < size; i++) {
+                ParamSpec spec = segments.get(i);
+                if (spec != null) {
+                    paramNames[i] = spec.name;
+                    paramPrefixLengths[i] = spec.prefix.length();
+                    paramSuffixLengths[i] = spec.suffix.length();
+                    params = true;
+                }
+            }
+            this.hasParams = params;
+            this.emptyMatch = params ? null : new PathTemplateMatch(template, Collections.emptyMap());
+        }
+
+        String getTemplate() {
+            return template;
+        }
+
+        HttpHandler getHandler() {
+            return handler;
+        }
+
+        /**
+         * @param path the path this {@link Route} was matched against
+         * @return the {@link PathTemplateMatch} carrying the path parameters of the given path
+         */
+        PathTemplateMatch toPathTemplateMatch(String path) {
+            if (!hasParams) {
+                return emptyMatch;
+            }
+            Map<String, String> params = new LinkedHashMap<>();
+            int pos = 0;
+            for (int i = 0; i < paramNames.length; i++) {
+                int start = pos + 1;
+                int end = path.indexOf('/', start);
+                if (end < 0) {
+                    end = path.length();
+                }
+                if (paramNames[i] != null) {
+                    params.put(paramNames[i], path.substring(start + paramPrefixLengths[i], end - paramSuffixLengths[i]));
+                }
+                pos = end;
+            }
+            return new PathTemplateMatch(template, params);
+        }
+
+        @Override
+        public String toString() {
+            return template;
+        }
+    }
+
+    /**
+     * Collects the routes of a {@link PathTrie}. Not thread safe.
+     */
+    static final class Builder {
+        private final BuilderNode root = new BuilderNode();
+
+        /**
+         * @param method the HTTP method
+         * @param path the path template
+         * @param handler the handler to route to
+         * @return this {@link Builder}
+         * @throws IllegalArgumentException if a segment of the given path contains more than one template
+         */
+        Builder add(String method, String path, HttpHandler handler) {
+            String template = path.startsWith("/") ? path : "/" + path;
+            boolean prefixMatch = template.endsWith("*");
+            if (prefixMatch) {
+                template = template.substring(0, template.length() - 1);
+            }
+
+            String segmentsPart = template;
+            String prefixLiteral = null;
+            if (prefixMatch) {
+                int lastSlash = template.lastIndexOf('/');
+                segmentsPart = template.substring(0, lastSlash);
+                prefixLiteral = template.substring(lastSlash);
+            } else if (template.length() > 1 && template.endsWith("/")) {
+                segmentsPart = template.substring(0, template.length() - 1);
+            }
+
+            BuilderNode node = root;
+            List<ParamSpec> specs = new ArrayList<>();
+            if (!segmentsPart.isEmpty() && !segmentsPart.equals("/")) {
+                for (String segment : segmentsPart.substring(1).split("/", -1)) {
+                    ParamSpec spec = ParamSpec.parse(segment, path);
+                    specs.add(spec);
+                    if (spec == null) {
+                        node = node.literals.computeIfAbsent(segment, k -> new BuilderNode());
+                    } else {
+                        node = node.params.computeIfAbsent(spec.shape(), k -> new BuilderParam(spec)).node;
+                    }
+                }
+            }
+
+            Route route = new Route(path, handler, specs);
+            HttpString httpMethod = Methods.fromString(method);
+            if (prefixMatch) {
+                node.prefixes.computeIfAbsent(prefixLiteral, k -> new LinkedHashMap<>()).put(httpMethod, route);
+            } else {
+                node.exact.put(httpMethod, route);
+            }
+            return this;
+        }
+
+        PathTrie build() {
+            return new PathTrie(root.freeze());
+        }
+    }
+
+    private static final class ParamSpec {
+        private final String prefix;
+        private final String name;
+        private final String suffix;
+
+        private ParamSpec(String prefix, String name, String suffix) {
+            this.prefix = prefix;
+            this.name = name;
+            this.suffix = suffix;
+        }
+
+        static ParamSpec parse(String segment, String path) {
+            int open = segment.indexOf('{');
+            if (open < 0) {
+                return null;
+            }
+            int close = segment.indexOf('}', open);
+            if (close < 0 || segment.indexOf('{', close) >= 0) {
+                throw new IllegalArgumentException("Unsupported path template segment '" + segment + "' in " + path);
+            }
+            return new ParamSpec(segment.substring(0, open), segment.substring(open + 1, close), segment.substring(close + 1));
+        }
+
+        String shape() {
+            return prefix + "{}" + suffix;
+        }
+    }
+
+    private static final class BuilderParam {
+        private final String prefix;
+        private final String suffix;
+        private final BuilderNode node = new BuilderNode();
+
+        BuilderParam(ParamSpec spec) {
+            this.prefix = spec.prefix;
+            this.suffix = spec.suffix;
+        }
+    }
+
+    private static final class BuilderNode {
+        private final Map<String, BuilderNode> literals = new HashMap<>();
+        private final Map<String, BuilderParam> params = new HashMap<>();
+        private final Map<HttpString, Route> exact = new LinkedHashMap<>();
+        private final Map<String, Map<HttpString, Route>> prefixes = new HashMap<>();
+
+        Node freeze() {
+            List<Map.Entry<String, BuilderNode>> literalEntries = new ArrayList<>(literals.entrySet());
+            int tableSize = Integer.highestOneBit(Math.max(1, literalEntries.size() * 2 - 1)) << 1;
+            String[] keys = new String[tableSize];
+            Node[] children = new Node[tableSize];
+            for (Map.Entry<String, BuilderNode> entry : literalEntries) {
+                String key = entry.getKey();
+                int idx = spread(key.hashCode()) & (tableSize - 1);
+                while (keys[idx] != null) {
+                    idx = (idx + 1) & (tableSize - 1);
+                }
+                keys[idx] = key;
+                children[idx] = entry.getValue().freeze();
+            }
+
+            /* more specific templates first */
+            List<BuilderParam> paramList = new ArrayList<>(params.values());
+            paramList.sort(Comparator.comparingInt((BuilderParam p) -> p.prefix.length() + p.suffix.length()).reversed());
+            Param[] frozenParams = new Param[paramList.size()];
+            for (int i = 0; i < frozenParams.length; i++) {
+                BuilderParam param = paramList.get(i);
+                frozenParams[i] = new Param(param.prefix, param.suffix, param.node.freeze());
+            }
+
+            /* longest prefix first */
+            List<String> prefixList = new ArrayList<>(prefixes.keySet());
+            prefixList.sort(Comparator.comparingInt(String::length).reversed());
+            Prefix[] frozenPrefixes = new Prefix[prefixList.size()];
+            for (int i = 0; i < frozenPrefixes.length; i++) {
+                String literal = prefixList.get(i);
+                frozenPrefixes[i] = new Prefix(literal, new Routes(prefixes.get(literal)));
+            }
+
+            return new Node(keys, children, frozenParams, exact.isEmpty() ? null : new Routes(exact), frozenPrefixes);
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Routes {
+        private final Map<HttpString, Route> byMethod;
+        private final Route any;
+
+        Routes(Map<HttpString, Route> byMethod) {
+            this.byMethod = new HashMap<>(byMethod);
+            this.any = byMethod.values().iterator().next();
+        }
+
+        Route get(HttpString method) {
+            return method == null ? any : byMethod.get(method);
+        }
+    }
+
+    private static final class Param {
+        private final String prefix;
+        private final String suffix;
+        private final Node node;
+
+        Param(String prefix, String suffix, Node node) {
+            this.prefix = prefix;
+            this.suffix = suffix;
+            this.node = node;
+        }
+
+        boolean matches(String path, int start, int end) {
+            return end - start > prefix.length() + suffix.length()
+                    && path.startsWith(prefix, start)
+                    && path.regionMatches(end - suffix.length(), suffix, 0, suffix.length());
+        }
+    }
+
+    private static final class Prefix {
+        private final String literal;
+        private final Routes routes;
+
+        Prefix(String literal, Routes routes) {
+            this.literal = literal;
+            this.routes = routes;
+        }
+    }
+
+    private static final class Node {
+        private final String[] literalKeys;
+        private final Node[] literalChildren;
+        private final Param[] params;
+        private final Routes exact;
+        private final Prefix[] prefixes;
+
+        Node(String[] literalKeys, Node[] literalChildren, Param[] params, Routes exact, Prefix[] prefixes) {
+            this.literalKeys = literalKeys;
+            this.literalChildren = literalChildren;
+            this.params = params;
+            this.exact = exact;
+            this.prefixes = prefixes;
+        }
+
+        Route match(String path, int pos, HttpString method) {
+            final int len = path.length();
+            if (exact != null && (pos == len || (pos == len - 1 && path.charAt(pos) == '/'))) {
+                Route route = exact.get(method);
+                if (route != null) {
+                    return route;
+                }
+            }
+            if (pos < len) {
+                int start = pos + 1;
+                int end = path.indexOf('/', start);
+                if (end < 0) {
+                    end = len;
+                }
+                if (end > start) {
+                    Node child = literal(path, start, end);
+                    if (child != null) {
+                        Route route = child.match(path, end, method);
+                        if (route != null) {
+                            return route;
+                        }
+                    }
+                    for (Param param : params) {
+                        if (param.matches(path, start, end)) {
+                            Route route = param.node.match(path, end, method);
+                            if (route != null) {
+                                return route;
+                            }
+                        }
+                    }
+                }
+            }
+            for (Prefix prefix : prefixes) {
+                if (path.startsWith(prefix.literal, pos)) {
+                    Route route = prefix.routes.get(method);
+                    if (route != null) {
+                        return route;
+                    }
+                }
+            }
+            return null;
+        }
+
+        private Node literal(String path, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + path.charAt(i);
+            }
+            int mask = literalKeys.length - 1;
+            int idx = spread(hash) & mask;
+            String key;
+            while ((key = literalKeys[idx]) != null) {
+                if (key.length() == end - start && path.regionMatches(start, key, 0, key.length())) {
+                    return literalChildren[idx];
+                }
+                idx = (idx + 1) & mask;
+            }
+            return null;
+        }
+    }
+}
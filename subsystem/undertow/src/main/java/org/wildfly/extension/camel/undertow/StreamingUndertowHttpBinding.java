@@ -0,0 +1,74 @@
+/*
+ * #%L
+ * Wildfly Camel :: Subsystem
+ * %%
+ * Copyright (C) 2013 - 2020 RedHat
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wildfly.extension.camel.undertow;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.component.undertow.DefaultUndertowHttpBinding;
+import org.apache.camel.support.DefaultMessage;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+
+/**
+ * An {@link org.apache.camel.component.undertow.UndertowHttpBinding} that binds the request body as an
+ * {@link java.io.InputStream} reading straight from Undertow's pooled buffers, instead of reading the whole body into
+ * a byte array before the route runs. Large bodies are spooled to disk by the Camel stream cache if it is enabled.
+ * <p>
+ * Form data is still bound by {@link DefaultUndertowHttpBinding}, because it is parsed before the exchange is created.
+ *
+ * @since 16-Oct-2020
+ */
+class StreamingUndertowHttpBinding extends DefaultUndertowHttpBinding {
+
+    private static final String FORM_URLENCODED = "application/x-www-form-urlencoded";
+    private static final String MULTIPART_FORM_DATA = "multipart/form-data";
+
+    static boolean isFormData(HttpServerExchange httpExchange) {
+        final String contentType = httpExchange.getRequestHeaders().getFirst(Headers.CONTENT_TYPE);
+        return contentType != null && (contentType.startsWith(FORM_URLENCODED) || contentType.startsWith(MULTIPART_FORM_DATA));
+    }
+
+    @Override
+    public Message toCamelMessage(HttpServerExchange httpExchange, Exchange exchange) throws Exception {
+        if (isFormData(httpExchange)) {
+            return super.toCamelMessage(httpExchange, exchange);
+        }
+        final Message result = new DefaultMessage(exchange.getContext());
+        populateCamelHeaders(httpExchange, result.getHeaders(), exchange);
+        final String charset = httpExchange.getRequestCharset();
+        if (charset != null) {
+            exchange.setProperty(Exchange.CHARSET_NAME, charset);
+        }
+        if (hasRequestBody(httpExchange)) {
+            // A servlet exchange is blocking already, so this returns the servlet input stream
+            if (!httpExchange.isBlocking()) {
+                httpExchange.startBlocking();
+            }
+            result.setBody(httpExchange.getInputStream());
+        }
+        return result;
+    }
+
+    private static boolean hasRequestBody(HttpServerExchange httpExchange) {
+        final long contentLength = httpExchange.getRequestContentLength();
+        return contentLength > 0 || contentLength < 0 && httpExchange.getRequestHeaders().contains(Headers.TRANSFER_ENCODING);
+    }
+}
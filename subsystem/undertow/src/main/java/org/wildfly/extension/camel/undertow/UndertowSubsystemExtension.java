@@ -20,8 +20,10 @@
 package org.wildfly.extension.camel.undertow;
 
 import org.apache.camel.Component;
+import org.jboss.msc.service.ServiceContainer;
 import org.jboss.msc.service.ServiceTarget;
 import org.wildfly.extension.camel.CamelSubsytemExtension;
+import org.wildfly.extension.camel.ContextCreateHandler;
 import org.wildfly.extension.camel.parser.SubsystemState;
 
 public class UndertowSubsystemExtension implements CamelSubsytemExtension {
@@ -32,6 +34,11 @@ public class UndertowSubsystemExtension implements CamelSubsytemExtension {
         UndertowHostService.addService(serviceTarget);
     }
 
+    @Override
+    public ContextCreateHandler getContextCreateHandler(ServiceContainer serviceContainer, ServiceTarget serviceTarget, SubsystemState subsystemState) {
+        return new CxfDeploymentCacheHandler();
+    }
+
     @Override
     public Component resolveComponent(String name, SubsystemState subsystemState) {
         if (name.equals("cxf")) {
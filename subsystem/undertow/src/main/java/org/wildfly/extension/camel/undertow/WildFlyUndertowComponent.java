@@ -23,17 +23,37 @@ import static org.wildfly.extension.camel.CamelLogger.LOGGER;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.apache.camel.Consumer;
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
 import org.apache.camel.Processor;
+import org.apache.camel.TypeConverter;
+import org.apache.camel.component.undertow.DefaultUndertowHttpBinding;
 import org.apache.camel.component.undertow.UndertowComponent;
 import org.apache.camel.component.undertow.UndertowConsumer;
 import org.apache.camel.component.undertow.UndertowEndpoint;
 import org.apache.camel.component.undertow.UndertowHost;
 import org.apache.camel.component.undertow.UndertowHostKey;
+import org.apache.camel.component.undertow.UndertowHttpBinding;
+import org.apache.camel.spi.UriParam;
 import org.wildfly.camel.utils.ServiceLocator;
 import org.wildfly.extension.camel.parser.SubsystemState.RuntimeState;
 
+import io.undertow.server.HttpServerExchange;
+import io.undertow.servlet.handlers.ServletRequestContext;
+import io.undertow.util.Headers;
+import io.undertow.util.Methods;
+import io.undertow.util.MimeMappings;
+import io.undertow.util.SameThreadExecutor;
+import io.undertow.util.StatusCodes;
+
 /**
  * An extension to the {@link UndertowComponent}
  *
@@ -60,12 +80,110 @@ public class WildFlyUndertowComponent extends UndertowComponent {
 
     class WildFlyUndertowEndpoint extends UndertowEndpoint {
 
+        @UriParam(label = "consumer,advanced")
+        private boolean ioThreadDispatch;
+        @UriParam(label = "consumer,advanced")
+        private int maxConcurrentRequests;
+        @UriParam(label = "consumer,advanced")
+        private int requestQueueSize;
+        @UriParam(label = "consumer,advanced", defaultValue = "1")
+        private int retryAfter = 1;
+        @UriParam(label = "consumer,advanced")
+        private boolean streamRequestBody;
+        @UriParam(label = "consumer,advanced")
+        private boolean servletAsync;
+
         WildFlyUndertowEndpoint(String uri, UndertowComponent component) throws URISyntaxException {
             super(uri, component);
         }
 
+        public boolean isIoThreadDispatch() {
+            return ioThreadDispatch;
+        }
+
+        /**
+         * If enabled, requests are processed on the IO thread and the response is written once the asynchronous
+         * routing engine completes the exchange, instead of dispatching each request to a worker thread. Only use
+         * this for routes that do not block, such as routes handing off to seda or to non-blocking producers. Takes
+         * effect for endpoints registered as plain Undertow handlers, see the direct-http-handlers attribute of the
+         * jboss-camel descriptor.
+         */
+        public void setIoThreadDispatch(boolean ioThreadDispatch) {
+            this.ioThreadDispatch = ioThreadDispatch;
+        }
+
+        public int getMaxConcurrentRequests() {
+            return maxConcurrentRequests;
+        }
+
+        /**
+         * The maximum number of requests this consumer serves concurrently. Zero, the default, means no limit.
+         */
+        public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+            this.maxConcurrentRequests = maxConcurrentRequests;
+        }
+
+        public int getRequestQueueSize() {
+            return requestQueueSize;
+        }
+
+        /**
+         * The maximum number of requests waiting for a free slot once maxConcurrentRequests is reached. Further
+         * requests are rejected with 503 Service Unavailable.
+         */
+        public void setRequestQueueSize(int requestQueueSize) {
+            this.requestQueueSize = requestQueueSize;
+        }
+
+        public int getRetryAfter() {
+            return retryAfter;
+        }
+
+        /**
+         * The number of seconds sent in the Retry-After header of requests rejected due to maxConcurrentRequests.
+         */
+        public void setRetryAfter(int retryAfter) {
+            this.retryAfter = retryAfter;
+        }
+
+        public boolean isStreamRequestBody() {
+            return streamRequestBody;
+        }
+
+        /**
+         * If enabled, the request body is bound as an InputStream over the undertow request buffers instead of being
+         * read into a byte array before the route runs. Enable stream caching to spool large bodies to disk. Does not
+         * apply to form data and to requests processed on the IO thread, see ioThreadDispatch.
+         */
+        public void setStreamRequestBody(boolean streamRequestBody) {
+            this.streamRequestBody = streamRequestBody;
+        }
+
+        public boolean isServletAsync() {
+            return servletAsync;
+        }
+
+        /**
+         * If enabled, requests served through the endpoint servlet are suspended with servlet async support while the
+         * exchange is routed, so that the worker thread is released as soon as the route goes asynchronous. Has no
+         * effect on synchronous endpoints.
+         */
+        public void setServletAsync(boolean servletAsync) {
+            this.servletAsync = servletAsync;
+        }
+
         @Override
         public Consumer createConsumer(Processor processor) throws Exception {
+            if (streamRequestBody) {
+                final UndertowHttpBinding binding = getUndertowHttpBinding();
+                // Leave a custom binding alone
+                if (binding.getClass() == DefaultUndertowHttpBinding.class) {
+                    final StreamingUndertowHttpBinding streamingBinding = new StreamingUndertowHttpBinding();
+                    streamingBinding.setHeaderFilterStrategy(binding.getHeaderFilterStrategy());
+                    streamingBinding.setTransferException(getTransferException());
+                    setUndertowHttpBinding(streamingBinding);
+                }
+            }
             return new WildFlyUndertowUndertowConsumer(this, processor);
         }
     }
@@ -81,6 +199,143 @@ public class WildFlyUndertowComponent extends UndertowComponent {
             }
         }
 
+        boolean isIoThreadDispatch() {
+            return getEndpoint() instanceof WildFlyUndertowEndpoint && ((WildFlyUndertowEndpoint) getEndpoint()).isIoThreadDispatch();
+        }
+
+        boolean isServletAsync() {
+            return getEndpoint() instanceof WildFlyUndertowEndpoint && ((WildFlyUndertowEndpoint) getEndpoint()).isServletAsync();
+        }
+
+        /**
+         * @return {@code true} if the given request can be processed on the IO thread. Form data is parsed by blocking
+         *         undertow form parsers and a streamed body must be read by a worker thread.
+         */
+        boolean isIoThreadRequest(HttpServerExchange httpExchange) {
+            return isIoThreadDispatch() && !Methods.OPTIONS.equals(httpExchange.getRequestMethod())
+                    && !StreamingUndertowHttpBinding.isFormData(httpExchange)
+                    && !(getEndpoint().getUndertowHttpBinding() instanceof StreamingUndertowHttpBinding);
+        }
+
+        @Override
+        public void handleRequest(HttpServerExchange httpExchange) throws Exception {
+            if (Methods.OPTIONS.equals(httpExchange.getRequestMethod())) {
+                super.handleRequest(httpExchange);
+                return;
+            }
+            if (!httpExchange.isInIoThread()) {
+                if (!isServletAsync()) {
+                    super.handleRequest(httpExchange);
+                    return;
+                }
+                final ServletRequestContext servletRequestContext = ServletRequestContext.current();
+                if (servletRequestContext != null && servletRequestContext.getExchange() == httpExchange
+                        && servletRequestContext.getServletRequest().isAsyncSupported() && !getEndpoint().isSynchronous()) {
+                    processServletAsync(httpExchange, servletRequestContext.getServletRequest());
+                } else {
+                    super.handleRequest(httpExchange);
+                }
+                return;
+            }
+            if (!isIoThreadRequest(httpExchange)) {
+                // The routing handler dispatches such requests itself; keep its TCCL and blocking mode otherwise
+                final ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+                httpExchange.dispatch(new CamelUndertowHostService.ClassLoaderHandler(exchange -> {
+                    if (!exchange.isBlocking()) {
+                        exchange.startBlocking();
+                    }
+                    super.handleRequest(exchange);
+                }, tccl));
+                return;
+            }
+            httpExchange.getRequestReceiver().receiveFullBytes(this::processAsync, (exchange, ex) -> {
+                getExceptionHandler().handleException("Cannot read the request body", ex);
+                exchange.setStatusCode(StatusCodes.INTERNAL_SERVER_ERROR);
+                exchange.endExchange();
+            });
+        }
+
+        private void processAsync(HttpServerExchange httpExchange, byte[] body) {
+            final Exchange camelExchange = getEndpoint().createExchange();
+            try {
+                final Message in = camelExchange.getIn();
+                getEndpoint().getUndertowHttpBinding().populateCamelHeaders(httpExchange, in.getHeaders(), camelExchange);
+                in.setBody(body.length > 0 ? body : null);
+                final String charset = httpExchange.getRequestCharset();
+                if (charset != null) {
+                    camelExchange.setProperty(Exchange.CHARSET_NAME, charset);
+                }
+                createUoW(camelExchange);
+            } catch (Exception ex) {
+                getExceptionHandler().handleException("Cannot create exchange", camelExchange, ex);
+                httpExchange.setStatusCode(StatusCodes.INTERNAL_SERVER_ERROR);
+                httpExchange.endExchange();
+                return;
+            }
+            // Keep the HTTP exchange open until the callback fires, possibly on another thread
+            httpExchange.dispatch(SameThreadExecutor.INSTANCE, () -> {
+                getAsyncProcessor().process(camelExchange, doneSync -> {
+                    doneUoW(camelExchange);
+                    sendResponse(httpExchange, camelExchange);
+                });
+            });
+        }
+
+        /**
+         * Suspends the servlet request while the exchange is routed, so that the worker thread is released as soon as
+         * the route goes asynchronous. The request body is read on the worker thread beforehand.
+         */
+        private void processServletAsync(HttpServerExchange httpExchange, ServletRequest request) throws Exception {
+            final Exchange camelExchange = getEndpoint().createExchange(httpExchange);
+            createUoW(camelExchange);
+            final AsyncContext asyncContext = request.startAsync();
+            // Same as for synchronous processing, there is no limit on the time the route may take
+            asyncContext.setTimeout(0);
+            getAsyncProcessor().process(camelExchange, doneSync -> {
+                try {
+                    doneUoW(camelExchange);
+                    writeServletResponse(httpExchange, camelExchange, (HttpServletResponse) asyncContext.getResponse());
+                } finally {
+                    asyncContext.complete();
+                }
+            });
+        }
+
+        private void writeServletResponse(HttpServerExchange httpExchange, Exchange camelExchange, HttpServletResponse response) {
+            try {
+                final Object body = getEndpoint().getUndertowHttpBinding().toHttpResponse(httpExchange, camelExchange.getMessage());
+                if (body == null) {
+                    response.setContentType(MimeMappings.DEFAULT_MIME_MAPPINGS.get("txt"));
+                    response.getOutputStream().write("No response available".getBytes(StandardCharsets.UTF_8));
+                } else {
+                    final TypeConverter tc = getEndpoint().getCamelContext().getTypeConverter();
+                    response.getOutputStream().write(tc.mandatoryConvertTo(byte[].class, body));
+                }
+            } catch (Exception ex) {
+                getExceptionHandler().handleException("Cannot send response", camelExchange, ex);
+                if (!response.isCommitted()) {
+                    response.setStatus(StatusCodes.INTERNAL_SERVER_ERROR);
+                }
+            }
+        }
+
+        private void sendResponse(HttpServerExchange httpExchange, Exchange camelExchange) {
+            try {
+                final Object body = getEndpoint().getUndertowHttpBinding().toHttpResponse(httpExchange, camelExchange.getMessage());
+                if (body == null) {
+                    httpExchange.getResponseHeaders().put(Headers.CONTENT_TYPE, MimeMappings.DEFAULT_MIME_MAPPINGS.get("txt"));
+                    httpExchange.getResponseSender().send("No response available");
+                } else {
+                    final TypeConverter tc = getEndpoint().getCamelContext().getTypeConverter();
+                    httpExchange.getResponseSender().send(tc.mandatoryConvertTo(ByteBuffer.class, body));
+                }
+            } catch (Exception ex) {
+                getExceptionHandler().handleException("Cannot send response", camelExchange, ex);
+                httpExchange.setStatusCode(StatusCodes.INTERNAL_SERVER_ERROR);
+                httpExchange.endExchange();
+            }
+        }
+
         @Override
         protected void doStart() throws Exception {
             super.doStart();
@@ -0,0 +1,81 @@
+/*
+ * #%L
+ * Wildfly Camel :: Subsystem
+ * %%
+ * Copyright (C) 2013 - 2020 RedHat
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wildfly.extension.camel.undertow;
+
+import java.lang.reflect.Field;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+import org.apache.cxf.common.jaxb.JAXBContextCache.CachedContextAndSchemas;
+import org.apache.cxf.jaxb.JAXBDataBinding;
+import org.junit.Assert;
+import org.junit.Test;
+import org.wildfly.extension.camel.undertow.CxfDeploymentCacheHandler.CachingJAXBDataBinding;
+
+public class CxfDeploymentCacheHandlerTest {
+
+    @Test
+    public void testTypeRefsField() throws Exception {
+        // CachingJAXBDataBinding relies on this private field of the CXF version in use
+        Field field = JAXBDataBinding.class.getDeclaredField("typeRefs");
+        Assert.assertTrue(Collection.class.isAssignableFrom(field.getType()));
+
+        CachingJAXBDataBinding binding = new CachingJAXBDataBinding(new JAXBContextCache());
+        Assert.assertFalse(binding.hasTypeRefs());
+
+        field.setAccessible(true);
+        @SuppressWarnings("unchecked")
+        Collection<Object> typeRefs = (Collection<Object>) field.get(binding);
+        typeRefs.add(new Object());
+        Assert.assertTrue(binding.hasTypeRefs());
+    }
+
+    @Test
+    public void testContextShared() throws Exception {
+        JAXBContextCache cache = new JAXBContextCache();
+
+        CachedContextAndSchemas first = new CachingJAXBDataBinding(cache).createJAXBContextAndSchemas(classes(), "urn:test");
+        Assert.assertEquals(0, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+
+        Set<Class<?>> classes = classes();
+        CachedContextAndSchemas second = new CachingJAXBDataBinding(cache).createJAXBContextAndSchemas(classes, "urn:test");
+        Assert.assertSame(first.getContext(), second.getContext());
+        Assert.assertTrue(classes.containsAll(first.getClasses()));
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+        Assert.assertEquals(0.5, cache.getHitRatio(), 0.0);
+        Assert.assertEquals(1, cache.size());
+    }
+
+    private static Set<Class<?>> classes() {
+        Set<Class<?>> classes = new HashSet<>();
+        classes.add(Greeting.class);
+        return classes;
+    }
+
+    @XmlRootElement
+    public static class Greeting {
+        public String text;
+    }
+}
@@ -0,0 +1,93 @@
+package org.wildfly.extension.camel.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.wildfly.extension.camel.service.CamelEndpointDeployerService.CompiledConstraints;
+import org.wildfly.extension.camel.service.CamelEndpointDeployerService.UrlPattern;
+
+import io.undertow.servlet.api.DeploymentInfo;
+import io.undertow.servlet.api.SecurityConstraint;
+import io.undertow.servlet.api.WebResourceCollection;
+
+public class UrlPatternTest {
+
+    static void assertPath(String urlPattern, String path, String expectedRelativePattern) {
+        final UrlPattern pattern = new UrlPattern(urlPattern);
+package org.wildfly.extension.camel.undertow;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.extension.camel.undertow.CamelUndertowHostService.DelegatingRoutingHandler;
+
+import io.undertow.Undertow;
+
+public class DelegatingRoutingHandlerTest {
+
+    private Undertow server;
+    private int port;
+
+    @Before
+    public void before() {
+        DelegatingRoutingHandler routingHandler = new DelegatingRoutingHandler(null);
+        routingHandler.add("GET", "/hello/{name}", exchange -> exchange.getResponseSender().send("Hello " + exchange.getQueryParameters().get("name").getFirst()));
+        server = Undertow.builder().addHttpListener(0, "localhost").setHandler(routingHandler).build();
+        server.start();
+        port = ((InetSocketAddress) server.getListenerInfo().get(0).getAddress()).getPort();
+    }
+
+    @After
+    public void after() {
+        server.stop();
+    }
+
+    @Test
+    public void testMatchingRoute() throws Exception {
+        HttpURLConnection con = open("GET", "/hello/Kermit");
+        try {
+            Assert.assertEquals(200, con.getResponseCode());
+            try (InputStream in = con.getInputStream()) {
+                Assert.assertEquals("Hello Kermit", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        } finally {
+            con.disconnect();
+        }
+    }
+
+    @Test
+    public void testMethodMismatchIsNotFound() throws Exception {
+        HttpURLConnection con = open("DELETE", "/hello/Kermit");
+        try {
+            Assert.assertEquals(404, con.getResponseCode());
+        } finally {
+            con.disconnect();
+        }
+    }
+
+    @Test
+    public void testUnknownPathIsNotFound() throws Exception {
+        HttpURLConnection con = open("GET", "/other");
+        try {
+            Assert.assertEquals(404, con.getResponseCode());
+        } finally {
+            con.disconnect();
+        }
+    }
+
+    private HttpURLConnection open(String method, String path) throws Exception {
+        HttpURLConnection con = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+        con.setRequestMethod(method);
+        return con;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * #%L
+ * Wildfly Camel :: Subsystem
+ * %%
+ * Copyright (C) 2013 - 2020 RedHat
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wildfly.extension.camel.undertow;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.util.HttpString;
+import io.undertow.util.Methods;
+
+public class PathTrieTest {
+
+    static void assertRoute(PathTrie trie, HttpString method, String path, String expectedTemplate) {
+        final PathTrie.Route route = trie.match(path, method);
+        Assert.assertEquals(expectedTemplate, route == null ? null : route.getTemplate());
+    }
+
+    static HttpHandler handler() {
+        return exchange -> {};
+    }
+
+    @Test
+    public void testLiteralAndTemplates() {
+        PathTrie trie = new PathTrie.Builder()
+            .add("GET", "/", handler())
+            .add("GET", "/foo", handler())
+            .add("GET", "/foo/{id}", handler())
+            .add("GET", "/foo/bar", handler())
+            .add("POST", "/foo/{id}/items", handler())
+            .add("GET", "/files/{name}.json", handler())
+            .build();
+
+        assertRoute(trie, Methods.GET, "/", "/");
+        assertRoute(trie, Methods.GET, "/foo", "/foo");
+        assertRoute(trie, Methods.GET, "/foo/", "/foo");
+        assertRoute(trie, Methods.GET, "/foo/bar", "/foo/bar");
+        assertRoute(trie, Methods.GET, "/foo/baz", "/foo/{id}");
+        assertRoute(trie, Methods.POST, "/foo/bar/items", "/foo/{id}/items");
+        assertRoute(trie, Methods.GET, "/foo/bar/items", null);
+        assertRoute(trie, null, "/foo/bar/items", "/foo/{id}/items");
+        assertRoute(trie, Methods.GET, "/files/a.json", "/files/{name}.json");
+        assertRoute(trie, Methods.GET, "/files/.json", null);
+        assertRoute(trie, Methods.GET, "/bar", null);
+
+        Assert.assertEquals("baz", trie.match("/foo/baz", Methods.GET).toPathTemplateMatch("/foo/baz").getParameters().get("id"));
+        Assert.assertEquals("a", trie.match("/files/a.json", Methods.GET).toPathTemplateMatch("/files/a.json").getParameters().get("name"));
+        Assert.assertTrue(trie.match("/foo", Methods.GET).toPathTemplateMatch("/foo").getParameters().isEmpty());
+    }
+
+    @Test
+    public void testPrefixMatch() {
+        PathTrie trie = new PathTrie.Builder()
+            .add("GET", "/*", handler())
+            .add("GET", "/foo*", handler())
+            .add("GET", "/foo/bar", handler())
+            .build();
+
+        assertRoute(trie, Methods.GET, "/", "/*");
+        assertRoute(trie, Methods.GET, "/other", "/*");
+        assertRoute(trie, Methods.GET, "/foo", "/foo*");
+        assertRoute(trie, Methods.GET, "/foobar", "/foo*");
+        assertRoute(trie, Methods.GET, "/foo/baz", "/foo*");
+        assertRoute(trie, Methods.GET, "/foo/bar", "/foo/bar");
+        assertRoute(trie, Methods.POST, "/foo/bar", null);
+    }
+
+    @Test
+    public void testEmpty() {
+        assertRoute(PathTrie.EMPTY, Methods.GET, "/", null);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * #%L
+ * Wildfly Camel :: Subsystem
+ * %%
+ * Copyright (C) 2013 - 2020 RedHat
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wildfly.extension.camel.undertow;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Consumer;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.wildfly.extension.camel.undertow.CamelUndertowHostService.DelegatingRoutingHandler;
+import org.wildfly.extension.camel.undertow.WildFlyUndertowComponent.WildFlyUndertowEndpoint;
+
+import io.undertow.Undertow;
+import io.undertow.server.HttpHandler;
+
+public class WildFlyUndertowConsumerTest {
+
+    private final AtomicReference<ClassLoader> routeClassLoader = new AtomicReference<>();
+    private final AtomicReference<String> routeThread = new AtomicReference<>();
+    private CamelContext camelctx;
+    private Undertow server;
+    private int port;
+
+    @Before
+    public void before() throws Exception {
+        camelctx = new DefaultCamelContext();
+        camelctx.addComponent("undertow", new WildFlyUndertowComponent(null));
+        camelctx.start();
+
+        WildFlyUndertowEndpoint endpoint = camelctx.getEndpoint("undertow:http://localhost/form", WildFlyUndertowEndpoint.class);
+        endpoint.setIoThreadDispatch(true);
+        Consumer consumer = endpoint.createConsumer(exchange -> {
+            routeClassLoader.set(Thread.currentThread().getContextClassLoader());
+            routeThread.set(Thread.currentThread().getName());
+            exchange.getMessage().setBody("Hello " + exchange.getIn().getHeader("name", String.class));
+        });
+
+        // The routing handler sets its deployment class loader, null here, as TCCL on the worker thread
+        DelegatingRoutingHandler routingHandler = new DelegatingRoutingHandler(null);
+        routingHandler.add("POST", "/form", (HttpHandler) consumer);
+        server = Undertow.builder().addHttpListener(0, "localhost").setHandler(routingHandler).build();
+        server.start();
+        port = ((InetSocketAddress) server.getListenerInfo().get(0).getAddress()).getPort();
+    }
+
+    @After
+    public void after() throws Exception {
+        server.stop();
+        camelctx.stop();
+    }
+
+    @Test
+    public void testFormPostWithIoThreadDispatch() throws Exception {
+        HttpURLConnection con = (HttpURLConnection) new URL("http://localhost:" + port + "/form").openConnection();
+        con.setRequestMethod("POST");
+        con.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+        con.setDoOutput(true);
+        try {
+            try (OutputStream out = con.getOutputStream()) {
+                out.write("name=Kermit".getBytes(StandardCharsets.UTF_8));
+            }
+            Assert.assertEquals(200, con.getResponseCode());
+            try (InputStream in = con.getInputStream()) {
+                Assert.assertEquals("Hello Kermit", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        } finally {
+            con.disconnect();
+        }
+        Assert.assertNull(routeClassLoader.get());
+        Assert.assertFalse(routeThread.get(), routeThread.get().contains("I/O"));
+    }
+}